@@ -0,0 +1,29 @@
+package taojava.analysis;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import taojava.util.AdaptiveSortedList;
+
+/**
+ * Quick and dirty analysis of AdaptiveSortedLists.
+ */
+public class AdaptiveSortedListAnalyzer
+{
+
+  public static void main(String[] args)
+    throws IOException
+  {
+    PrintWriter pen = new PrintWriter(System.out, true);
+    int regressions =
+        SortedListAnalyzer.run(args, pen, new AdaptiveSortedList<Integer>(),
+                               32000, 100);
+    pen.close();
+    if (regressions > 0)
+      System.exit(1);
+  } // main(String[])
+
+} // AdaptiveSortedListAnalyzer
+
+
+
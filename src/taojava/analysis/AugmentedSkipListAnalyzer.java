@@ -0,0 +1,32 @@
+package taojava.analysis;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import taojava.util.AugmentedSkipList;
+import taojava.util.Monoids;
+
+/**
+ * Quick and dirty analysis of AugmentedSkipLists.
+ */
+public class AugmentedSkipListAnalyzer
+{
+
+  public static void main(String[] args)
+    throws IOException
+  {
+    PrintWriter pen = new PrintWriter(System.out, true);
+    int regressions =
+        SortedListAnalyzer.run(args, pen,
+                               new AugmentedSkipList<Integer, Long>(
+                                   Monoids.<Integer> sum()),
+                               32000, 100);
+    pen.close();
+    if (regressions > 0)
+      System.exit(1);
+  } // main(String[])
+
+} // AugmentedSkipListAnalyzer
+
+
+
@@ -0,0 +1,29 @@
+package taojava.analysis;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import taojava.util.BSkipList;
+
+/**
+ * Quick and dirty analysis of BSkipLists.
+ */
+public class BSkipListAnalyzer
+{
+
+  public static void main(String[] args)
+    throws IOException
+  {
+    PrintWriter pen = new PrintWriter(System.out, true);
+    int regressions =
+        SortedListAnalyzer.run(args, pen, new BSkipList<Integer>(),
+                               32000, 100);
+    pen.close();
+    if (regressions > 0)
+      System.exit(1);
+  } // main(String[])
+
+} // BSkipListAnalyzer
+
+
+
@@ -0,0 +1,282 @@
+package taojava.analysis;
+
+import java.io.PrintWriter;
+
+import java.util.Random;
+import java.util.function.Supplier;
+
+import taojava.util.SortedList;
+
+/**
+ * Empirical analysis of how the cost of sorted-list operations grows
+ * with the size of the list.  We sweep n over a geometric series,
+ * measure the average cost of each operation at each n, and then fit
+ * the measurements against the usual growth models.
+ */
+public class ComplexityAnalyzer
+{
+  // +-----------+-------------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The operations we measure.
+   */
+  public static final String[] OPERATIONS = { "add", "contains", "get",
+                                             "iterate", "remove" };
+
+  /**
+   * The growth models we fit against.
+   */
+  public static final String[] MODELS = { "1", "log n", "n", "n log n" };
+
+  /**
+   * The number of times we repeat each measurement.  We keep the
+   * smallest time, which is the one least disturbed by the rest of
+   * the system.
+   */
+  static final int REPS = 3;
+
+  // +---------+---------------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Compute the value of model m at n.
+   */
+  static double model(int m, double n)
+  {
+    switch (m)
+      {
+        case 0:
+          return 1;
+        case 1:
+          return Math.log(n);
+        case 2:
+          return n;
+        default:
+          return n * Math.log(n);
+      } // switch
+  } // model(int, double)
+
+  /**
+   * Measure the cost, in nanoseconds per operation, of each of the
+   * operations on a list of (approximately) n elements.  Each lookup
+   * operation is performed ops times.
+   */
+  static double[] measure(Supplier<SortedList<Integer>> factory, int n,
+                          int ops, Random random)
+  {
+    double[] costs = new double[OPERATIONS.length];
+    for (int i = 0; i < costs.length; i++)
+      costs[i] = Double.MAX_VALUE;
+
+    for (int rep = 0; rep < REPS; rep++)
+      {
+        SortedList<Integer> sl = factory.get();
+        long[] times = new long[OPERATIONS.length];
+
+        // Build the list (all even values)
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++)
+          sl.add(2 * random.nextInt(4 * n));
+        times[0] = System.nanoTime() - start;
+        int len = sl.length();
+
+        // Look up values, about half of which are present
+        start = System.nanoTime();
+        for (int i = 0; i < ops; i++)
+          sl.contains(random.nextInt(8 * n));
+        times[1] = System.nanoTime() - start;
+
+        // Look up values by index
+        start = System.nanoTime();
+        for (int i = 0; i < ops; i++)
+          sl.get(random.nextInt(len));
+        times[2] = System.nanoTime() - start;
+
+        // Iterate
+        start = System.nanoTime();
+        for (Integer val : sl)
+          ;
+        times[3] = System.nanoTime() - start;
+
+        // Remove values, about half of which are present
+        start = System.nanoTime();
+        for (int i = 0; i < ops; i++)
+          sl.remove(2 * random.nextInt(4 * n));
+        times[4] = System.nanoTime() - start;
+
+        double[] perOp = { (double) times[0] / n, (double) times[1] / ops,
+                          (double) times[2] / ops,
+                          (double) times[3] / Math.max(len, 1),
+                          (double) times[4] / ops };
+        for (int i = 0; i < costs.length; i++)
+          costs[i] = Math.min(costs[i], perOp[i]);
+      } // for (rep)
+    return costs;
+  } // measure(Supplier<SortedList<Integer>>, int, int, Random)
+
+  // +---------+---------------------------------------------------------
+  // | Fitting |
+  // +---------+
+
+  /**
+   * Compute the slope of the least-squares line through the points
+   * (log sizes[i], log costs[i]).  That slope is the empirical growth
+   * exponent: about 0 for constant or logarithmic costs, about 1 for
+   * linear costs, and so on.
+   */
+  public static double exponent(int[] sizes, double[] costs)
+  {
+    int k = sizes.length;
+    double sx = 0, sy = 0, sxx = 0, sxy = 0;
+    for (int i = 0; i < k; i++)
+      {
+        double x = Math.log(sizes[i]);
+        double y = Math.log(Math.max(costs[i], Double.MIN_VALUE));
+        sx += x;
+        sy += y;
+        sxx += x * x;
+        sxy += x * y;
+      } // for (i)
+    double denom = k * sxx - sx * sx;
+    return (denom == 0) ? 0 : (k * sxy - sx * sy) / denom;
+  } // exponent(int[], double[])
+
+  /**
+   * Determine which model best fits costs[i] = a * model(sizes[i]).
+   * We fit in log space, so that small and large sizes count equally,
+   * and pick the model with the smallest sum of squared residuals.
+   *
+   * @return m
+   *   An index into MODELS.
+   */
+  public static int bestModel(int[] sizes, double[] costs)
+  {
+    int best = 0;
+    double bestResidual = Double.MAX_VALUE;
+    for (int m = 0; m < MODELS.length; m++)
+      {
+        // For a fixed model, the best log a is the mean difference
+        double[] diffs = new double[sizes.length];
+        double loga = 0;
+        for (int i = 0; i < sizes.length; i++)
+          {
+            diffs[i] =
+                Math.log(Math.max(costs[i], Double.MIN_VALUE))
+                    - Math.log(model(m, sizes[i]));
+            loga += diffs[i];
+          } // for (i)
+        loga /= sizes.length;
+        double residual = 0;
+        for (double diff : diffs)
+          residual += (diff - loga) * (diff - loga);
+        if (residual < bestResidual)
+          {
+            best = m;
+            bestResidual = residual;
+          } // if
+      } // for (m)
+    return best;
+  } // bestModel(int[], double[])
+
+  // +----------+--------------------------------------------------------
+  // | Analysis |
+  // +----------+
+
+  /**
+   * Sweep n from min to max (multiplying by ratio at each step),
+   * printing the cost per operation at each size, followed by the
+   * fitted exponent and best model for each operation.
+   *
+   * @return costs
+   *   costs[i][j] is the cost of OPERATIONS[j] at the ith size.
+   * @throws IllegalArgumentException
+   *   if min < 1, max < min, or ratio < 2
+   */
+  public static double[][] analyze(PrintWriter pen,
+                                   Supplier<SortedList<Integer>> factory,
+                                   int min, int max, int ratio, int ops)
+  {
+    if (min < 1)
+      throw new IllegalArgumentException("Invalid min: " + min);
+    if (max < min)
+      throw new IllegalArgumentException("max (" + max + ") is less than min ("
+                                         + min + ")");
+    if (ratio < 2)
+      throw new IllegalArgumentException("Invalid ratio: " + ratio);
+    Random random = new Random();
+    int steps = 0;
+    for (long n = min; n <= max; n *= ratio)
+      steps++;
+    int[] sizes = new int[steps];
+    double[][] costs = new double[steps][];
+
+    // Warm up, so that the first size is not measured in the interpreter
+    measure(factory, min, ops, random);
+
+    pen.printf("%10s", "n");
+    for (String op : OPERATIONS)
+      pen.printf("%12s", op);
+    pen.println();
+    long n = min;
+    for (int step = 0; step < steps; step++, n *= ratio)
+      {
+        sizes[step] = (int) n;
+        costs[step] = measure(factory, sizes[step], ops, random);
+        pen.printf("%10d", n);
+        for (double cost : costs[step])
+          pen.printf("%12.1f", cost);
+        pen.println();
+      } // for (step)
+
+    pen.println();
+    pen.printf("%-10s%10s%10s\n", "operation", "exponent", "model");
+    for (int j = 0; j < OPERATIONS.length; j++)
+      {
+        double[] opCosts = new double[steps];
+        for (int step = 0; step < steps; step++)
+          opCosts[step] = costs[step][j];
+        pen.printf("%-10s%10.2f%10s\n", OPERATIONS[j],
+                   exponent(sizes, opCosts),
+                   MODELS[bestModel(sizes, opCosts)]);
+      } // for (j)
+    pen.flush();
+    return costs;
+  } // analyze(PrintWriter, Supplier<SortedList<Integer>>, int, int, int, int)
+
+  /**
+   * Sweep the sorted list class named on the command line, e.g.
+   * <pre>
+   *   java taojava.analysis.ComplexityAnalyzer taojava.util.SkipList 1000 128000
+   * </pre>
+   * Times are in nanoseconds per operation.
+   */
+  public static void main(String[] args)
+    throws Exception
+  {
+    PrintWriter pen = new PrintWriter(System.out, true);
+    String cname = (args.length > 0) ? args[0] : "taojava.util.SkipList";
+    int min = (args.length > 1) ? Integer.parseInt(args[1]) : 1000;
+    int max = (args.length > 2) ? Integer.parseInt(args[2]) : 64000;
+    final Class<?> c = Class.forName(cname);
+    analyze(pen, new Supplier<SortedList<Integer>>()
+      {
+        @SuppressWarnings("unchecked")
+        public SortedList<Integer> get()
+        {
+          try
+            {
+              return (SortedList<Integer>) c.getDeclaredConstructor()
+                                            .newInstance();
+            } // try
+          catch (Exception e)
+            {
+              throw new IllegalArgumentException("Cannot create a " + c, e);
+            } // catch
+        } // get()
+      }, min, max, 2, 2000);
+    pen.close();
+  } // main(String[])
+} // class ComplexityAnalyzer
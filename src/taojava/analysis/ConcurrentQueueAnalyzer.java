@@ -0,0 +1,207 @@
+package taojava.analysis;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import taojava.util.ConcurrentSkipListPriorityQueue;
+import taojava.util.SkipList;
+
+/**
+ * Measurement of the throughput of priority queues shared by many
+ * threads.  Each thread alternates at random between adding a value
+ * and polling the smallest one, for a fixed time, and we report the
+ * total operations per microsecond as the number of threads grows.
+ * We compare a SkipList behind a lock with the lock-free queue, exact
+ * and relaxed.
+ */
+public class ConcurrentQueueAnalyzer
+{
+  // +------------------+------------------------------------------------
+  // | Internal Classes |
+  // +------------------+
+
+  /**
+   * The operations we need from each queue.
+   */
+  interface Queue
+  {
+    void add(Integer val);
+
+    Integer poll();
+  } // interface Queue
+
+  /**
+   * A skip list behind a lock.
+   */
+  static class LockedSkipList
+      implements Queue
+  {
+    SkipList<Integer> list = new SkipList<Integer>();
+
+    public synchronized void add(Integer val)
+    {
+      this.list.add(val);
+    } // add(Integer)
+
+    public synchronized Integer poll()
+    {
+      return this.list.pollFirst();
+    } // poll()
+  } // class LockedSkipList
+
+  /**
+   * The lock-free queue.
+   */
+  static class LockFree
+      implements Queue
+  {
+    ConcurrentSkipListPriorityQueue<Integer> pq;
+
+    LockFree(int threads)
+    {
+      this.pq = new ConcurrentSkipListPriorityQueue<Integer>(threads);
+    } // LockFree(int)
+
+    public void add(Integer val)
+    {
+      this.pq.add(val);
+    } // add(Integer)
+
+    public Integer poll()
+    {
+      return this.pq.poll();
+    } // poll()
+  } // class LockFree
+
+  // +-----------+-------------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The names of the queues we compare.
+   */
+  public static final String[] QUEUES = { "locked", "exact", "relaxed" };
+
+  /**
+   * The range of the values we add.
+   */
+  static final int RANGE = 1 << 20;
+
+  // +---------+---------------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Make a fresh queue of the given kind for threads threads.
+   */
+  static Queue make(String name, int threads)
+  {
+    if (name.equals("locked"))
+      return new LockedSkipList();
+    else if (name.equals("exact"))
+      return new LockFree(0);
+    else
+      return new LockFree(threads);
+  } // make(String, int)
+
+  /**
+   * Run threads threads on a queue holding about size values for
+   * millis milliseconds.
+   *
+   * @return the number of operations per microsecond.
+   */
+  static double measure(final Queue queue, int threads, int size,
+                        long millis)
+    throws InterruptedException
+  {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    for (int i = 0; i < size; i++)
+      queue.add(random.nextInt(RANGE));
+
+    final AtomicBoolean done = new AtomicBoolean(false);
+    final long[] counts = new long[threads];
+    Thread[] workers = new Thread[threads];
+    for (int t = 0; t < threads; t++)
+      {
+        final int me = t;
+        workers[t] = new Thread()
+          {
+            public void run()
+            {
+              ThreadLocalRandom random = ThreadLocalRandom.current();
+              long count = 0;
+              while (!done.get())
+                {
+                  if (random.nextBoolean())
+                    queue.add(random.nextInt(RANGE));
+                  else
+                    queue.poll();
+                  count++;
+                } // while
+              counts[me] = count;
+            } // run()
+          }; // new Thread
+      } // for
+    long start = System.nanoTime();
+    for (Thread worker : workers)
+      worker.start();
+    Thread.sleep(millis);
+    done.set(true);
+    for (Thread worker : workers)
+      worker.join();
+    long elapsed = System.nanoTime() - start;
+
+    long total = 0;
+    for (long count : counts)
+      total += count;
+    return 1000.0 * total / elapsed;
+  } // measure(Queue, int, int, long)
+
+  // +---------+---------------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Print a table of throughput for 1, 2, 4, ..., maxThreads threads.
+   */
+  public static void analyze(PrintWriter pen, int maxThreads, int size,
+                             long millis)
+    throws InterruptedException
+  {
+    pen.println("Throughput in operations per microsecond (" + size
+                + " values, 50% add, 50% poll, " + millis + " ms per run)");
+    pen.printf("%-8s", "threads");
+    for (String name : QUEUES)
+      pen.printf("%10s", name);
+    pen.println();
+    for (int threads = 1; threads <= maxThreads; threads *= 2)
+      {
+        pen.printf("%-8d", threads);
+        for (String name : QUEUES)
+          pen.printf("%10.2f",
+                     measure(make(name, threads), threads, size, millis));
+        pen.println();
+      } // for
+  } // analyze(PrintWriter, int, int, long)
+
+  /**
+   * Compare the queues.  The optional arguments are the largest number
+   * of threads, the number of values in the queue, and the length of
+   * each run in milliseconds.
+   */
+  public static void main(String[] args)
+    throws Exception
+  {
+    PrintWriter pen = new PrintWriter(System.out, true);
+    int maxThreads = (args.length > 0) ? Integer.parseInt(args[0]) : 32;
+    int size = (args.length > 1) ? Integer.parseInt(args[1]) : 100000;
+    long millis = (args.length > 2) ? Long.parseLong(args[2]) : 1000;
+    // A first round, so that the JIT has settled before we measure
+    analyze(new PrintWriter(new StringWriter()), 4, size, millis / 4);
+    analyze(pen, maxThreads, size, millis);
+    pen.close();
+  } // main(String[])
+} // class ConcurrentQueueAnalyzer
@@ -0,0 +1,140 @@
+package taojava.analysis;
+
+import java.io.PrintWriter;
+
+import java.util.Random;
+
+import taojava.util.SkipList;
+import taojava.util.SortedArrayList;
+import taojava.util.SortedLinkedList;
+import taojava.util.SortedList;
+
+/**
+ * Hardware-independent analysis of sorted lists.  Rather than timing
+ * operations, we count the comparisons each operation makes, using
+ * CountedIntegers.  Since the counts do not depend on the machine or
+ * its load, they can be used to check algorithmic bounds in tests.
+ */
+public class CostAnalyzer
+{
+  // +-----------+-------------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The operations we count.
+   */
+  public static final String[] OPERATIONS = { "add", "contains", "get",
+                                             "remove" };
+
+  // +----------+--------------------------------------------------------
+  // | Analysis |
+  // +----------+
+
+  /**
+   * Add n random values to sl and then do ops calls to each of
+   * contains, get, and remove.
+   *
+   * @return comparisons
+   *   The average number of comparisons per call to each of
+   *   OPERATIONS.
+   */
+  public static double[] analyze(SortedList<CountedInteger> sl,
+                                 CountedInteger.Counter counter, int n,
+                                 int ops, Random random)
+  {
+    double[] comparisons = new double[OPERATIONS.length];
+
+    counter.reset();
+    for (int i = 0; i < n; i++)
+      sl.add(counter.wrap(2 * random.nextInt(4 * n)));
+    comparisons[0] = (double) counter.comparisons() / n;
+    int len = sl.length();
+
+    counter.reset();
+    for (int i = 0; i < ops; i++)
+      sl.contains(counter.wrap(random.nextInt(8 * n)));
+    comparisons[1] = (double) counter.comparisons() / ops;
+
+    counter.reset();
+    for (int i = 0; i < ops; i++)
+      sl.get(random.nextInt(len));
+    comparisons[2] = (double) counter.comparisons() / ops;
+
+    counter.reset();
+    for (int i = 0; i < ops; i++)
+      sl.remove(counter.wrap(2 * random.nextInt(4 * n)));
+    comparisons[3] = (double) counter.comparisons() / ops;
+
+    return comparisons;
+  } // analyze(SortedList<CountedInteger>, Counter, int, int, Random)
+
+  /**
+   * Print the comparisons per operation for sl, with n elements.
+   */
+  public static void analyze(PrintWriter pen, String name,
+                             SortedList<CountedInteger> sl,
+                             CountedInteger.Counter counter, int n, int ops)
+  {
+    double[] comparisons = analyze(sl, counter, n, ops, new Random());
+    pen.printf("%-18s%10d", name, n);
+    for (double c : comparisons)
+      pen.printf("%10.1f", c);
+    pen.println();
+  } // analyze(PrintWriter, String, SortedList<CountedInteger>, ...)
+
+  /**
+   * Print the average search path in sl, as well as the number of
+   * towers of each height.
+   */
+  public static void analyzePaths(PrintWriter pen,
+                                  SkipList<CountedInteger> sl,
+                                  CountedInteger.Counter counter, int ops,
+                                  Random random)
+  {
+    long visited = 0;
+    long descended = 0;
+    int bound = 8 * Math.max(sl.length(), 1);
+    for (int i = 0; i < ops; i++)
+      {
+        int[] path = sl.searchPath(counter.wrap(random.nextInt(bound)));
+        visited += path[0];
+        descended += path[1];
+      } // for (i)
+    pen.printf("n = %d: %.1f nodes visited, %.1f levels descended\n",
+               sl.length(), (double) visited / ops, (double) descended / ops);
+    int[] heights = sl.towerHeights();
+    for (int level = 0; level < heights.length; level++)
+      if (heights[level] > 0)
+        pen.printf("  level %2d: %d\n", level, heights[level]);
+  } // analyzePaths(PrintWriter, SkipList<CountedInteger>, ...)
+
+  public static void main(String[] args)
+  {
+    PrintWriter pen = new PrintWriter(System.out, true);
+    CountedInteger.Counter counter = new CountedInteger.Counter();
+    int ops = 1000;
+
+    pen.printf("%-18s%10s", "", "n");
+    for (String op : OPERATIONS)
+      pen.printf("%10s", op);
+    pen.println();
+    for (int n = 1000; n <= 16000; n *= 2)
+      {
+        analyze(pen, "SkipList", new SkipList<CountedInteger>(), counter, n,
+                ops);
+        analyze(pen, "SortedArrayList", new SortedArrayList<CountedInteger>(),
+                counter, n, ops);
+        analyze(pen, "SortedLinkedList",
+                new SortedLinkedList<CountedInteger>(), counter, n, ops);
+      } // for (n)
+
+    pen.println();
+    SkipList<CountedInteger> sl = new SkipList<CountedInteger>();
+    Random random = new Random();
+    for (int i = 0; i < 16000; i++)
+      sl.add(counter.wrap(random.nextInt(64000)));
+    analyzePaths(pen, sl, counter, ops, random);
+    pen.close();
+  } // main(String[])
+} // class CostAnalyzer
@@ -0,0 +1,113 @@
+package taojava.analysis;
+
+/**
+ * Integers that count how often they are compared.  Every call to
+ * compareTo or equals increments the comparison count of the counter
+ * that created the integer, which gives us a hardware-independent
+ * measure of the cost of sorted-list operations.
+ */
+public class CountedInteger
+    implements Comparable<CountedInteger>
+{
+  // +---------------+---------------------------------------------------
+  // | Inner Classes |
+  // +---------------+
+
+  /**
+   * A shared count of comparisons.
+   */
+  public static class Counter
+  {
+    /**
+     * The number of comparisons since the counter was created or
+     * last reset.
+     */
+    long comparisons;
+
+    /**
+     * Create a counted integer that reports to this counter.
+     */
+    public CountedInteger wrap(int val)
+    {
+      return new CountedInteger(val, this);
+    } // wrap(int)
+
+    /**
+     * Get the number of comparisons.
+     */
+    public long comparisons()
+    {
+      return this.comparisons;
+    } // comparisons()
+
+    /**
+     * Reset the number of comparisons to 0.
+     */
+    public void reset()
+    {
+      this.comparisons = 0;
+    } // reset()
+  } // class Counter
+
+  // +--------+----------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The underlying value.
+   */
+  int val;
+
+  /**
+   * The counter we report to.
+   */
+  Counter counter;
+
+  // +--------------+----------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new counted integer.
+   */
+  CountedInteger(int val, Counter counter)
+  {
+    this.val = val;
+    this.counter = counter;
+  } // CountedInteger(int, Counter)
+
+  // +---------+---------------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  public int compareTo(CountedInteger other)
+  {
+    this.counter.comparisons++;
+    return (this.val < other.val) ? -1 : ((this.val == other.val) ? 0 : 1);
+  } // compareTo(CountedInteger)
+
+  public boolean equals(Object other)
+  {
+    this.counter.comparisons++;
+    return (other instanceof CountedInteger)
+           && (((CountedInteger) other).val == this.val);
+  } // equals(Object)
+
+  public int hashCode()
+  {
+    return this.val;
+  } // hashCode()
+
+  public String toString()
+  {
+    return Integer.toString(this.val);
+  } // toString()
+
+  /**
+   * Get the underlying value.
+   */
+  public int intValue()
+  {
+    return this.val;
+  } // intValue()
+} // class CountedInteger
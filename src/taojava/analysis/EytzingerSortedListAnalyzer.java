@@ -0,0 +1,124 @@
+package taojava.analysis;
+
+import java.io.PrintWriter;
+
+import java.util.Random;
+
+import taojava.util.EytzingerSortedList;
+import taojava.util.IntEytzingerSortedList;
+import taojava.util.IntSortedArrayList;
+import taojava.util.SortedArrayList;
+import taojava.util.SortedList;
+
+/**
+ * Measurement of contains on frozen Eytzinger-order lists, against
+ * binary search over the same values: IntEytzingerSortedList against
+ * IntSortedArrayList, and EytzingerSortedList against SortedArrayList,
+ * both of boxed Integers.  Half of the probes are in the list.
+ *
+ * The largest default size gives an int tree of about 400MB, to get
+ * past the last-level cache of most machines.  At that size the boxed
+ * lists need a heap of about 4GB (-Xmx4g).  We build and measure one
+ * pair of lists at a time, so that only one pair is in memory.  Sizes
+ * given on the command line replace the defaults.
+ */
+public class EytzingerSortedListAnalyzer
+{
+  // +-----------+-------------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The default list sizes.
+   */
+  public static final int[] SIZES = { 1 << 16, 1 << 20, 1 << 24, 3 << 25 };
+
+  /**
+   * The number of probes per measurement.
+   */
+  public static final int PROBES = 2000000;
+
+  /**
+   * The number of timed rounds per measurement.
+   */
+  public static final int ROUNDS = 3;
+
+  // +---------+---------------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Probe list with every value in probes, once to let the JIT settle
+   * and then ROUNDS times.  We collect garbage first, since the lists
+   * we just built leave a lot of it, and take the fastest round, since
+   * the slower ones measure whatever else the machine was doing.
+   *
+   * @return the average time per probe, in nanoseconds.
+   */
+  static double measure(SortedList<Integer> list, Integer[] probes)
+  {
+    System.gc();
+    for (Integer probe : probes)
+      list.contains(probe);
+    long best = Long.MAX_VALUE;
+    for (int round = 0; round < ROUNDS; round++)
+      {
+        long start = System.nanoTime();
+        for (Integer probe : probes)
+          list.contains(probe);
+        best = Math.min(best, System.nanoTime() - start);
+      } // for
+    return (double) best / probes.length;
+  } // measure(SortedList<Integer>, Integer[])
+
+  // +---------+---------------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Measure each list size.
+   */
+  public static void main(String[] args)
+  {
+    PrintWriter pen = new PrintWriter(System.out, true);
+    int[] sizes = SIZES;
+    if (args.length > 0)
+      {
+        sizes = new int[args.length];
+        for (int i = 0; i < args.length; i++)
+          sizes[i] = Integer.parseInt(args[i]);
+      } // if
+    Random random = new Random(PROBES);
+    pen.println("Nanoseconds per contains (half the probes present)");
+    pen.printf("%10s%12s%12s%12s%12s%n", "length", "int eytz", "int array",
+               "eytzinger", "array");
+    for (int size : sizes)
+      {
+        int[] vals = new int[size];
+        for (int i = 0; i < size; i++)
+          vals[i] = random.nextInt(Integer.MAX_VALUE);
+        Integer[] probes = new Integer[PROBES];
+        for (int i = 0; i < PROBES; i++)
+          probes[i] = random.nextBoolean() ? vals[random.nextInt(size)]
+                                           : random.nextInt(Integer.MAX_VALUE);
+        IntSortedArrayList ints = new IntSortedArrayList(vals);
+        vals = null;
+        IntEytzingerSortedList intTree = IntEytzingerSortedList.freeze(ints);
+        double intEytzinger = measure(intTree, probes);
+        intTree = null;
+        double intBinary = measure(ints, probes);
+        SortedArrayList<Integer> boxed = new SortedArrayList<Integer>();
+        for (int i = 0; i < ints.length(); i++)
+          boxed.add(ints.intAt(i));
+        ints = null;
+        double binary = measure(boxed, probes);
+        EytzingerSortedList<Integer> tree = EytzingerSortedList.freeze(boxed);
+        boxed = null;
+        double eytzinger = measure(tree, probes);
+        tree = null;
+        pen.printf("%10d%12.0f%12.0f%12.0f%12.0f%n", size, intEytzinger,
+                   intBinary, eytzinger, binary);
+      } // for
+    pen.close();
+  } // main(String[])
+} // class EytzingerSortedListAnalyzer
@@ -0,0 +1,29 @@
+package taojava.analysis;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import taojava.util.IntSortedArrayList;
+
+/**
+ * Quick and dirty analysis of IntSortedArrayLists.
+ */
+public class IntSortedArrayListAnalyzer
+{
+
+  public static void main(String[] args)
+    throws IOException
+  {
+    PrintWriter pen = new PrintWriter(System.out, true);
+    int regressions =
+        SortedListAnalyzer.run(args, pen, new IntSortedArrayList(),
+                               32000, 100);
+    pen.close();
+    if (regressions > 0)
+      System.exit(1);
+  } // main(String[])
+
+} // IntSortedArrayListAnalyzer
+
+
+
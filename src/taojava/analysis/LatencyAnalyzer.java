@@ -0,0 +1,153 @@
+package taojava.analysis;
+
+import java.io.PrintWriter;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import taojava.util.SortedList;
+
+/**
+ * Measurement of the latency of individual sorted-list operations.
+ * Averages hide the rare slow operation, so we time each call on its
+ * own and report the tail of the distribution as well as the mean.
+ * Each timing includes the cost of reading the clock (a few tens of
+ * nanoseconds), which is the same for every list.
+ */
+public class LatencyAnalyzer
+{
+  // +-----------+-------------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The operations we time.
+   */
+  public static final String[] OPERATIONS = { "add", "contains", "remove" };
+
+  /**
+   * The quantiles we report.
+   */
+  public static final double[] QUANTILES = { 0.5, 0.99, 0.999, 0.9999 };
+
+  // +---------+---------------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Time ops calls of each operation on slist, which should already
+   * hold values drawn from [0, range).
+   *
+   * @return times
+   *   times[op][i] is the time of the ith call of OPERATIONS[op], in
+   *   nanoseconds, sorted into increasing order.
+   */
+  static long[][] measure(SortedList<Integer> slist, int range, int ops,
+                          Random random)
+  {
+    long[][] times = new long[OPERATIONS.length][ops];
+    for (int i = 0; i < ops; i++)
+      {
+        // Interleave the operations, so that the size stays steady
+        Integer val = random.nextInt(range);
+        long start = System.nanoTime();
+        slist.add(val);
+        long mid = System.nanoTime();
+        times[0][i] = mid - start;
+
+        val = random.nextInt(range);
+        start = System.nanoTime();
+        slist.contains(val);
+        mid = System.nanoTime();
+        times[1][i] = mid - start;
+
+        val = random.nextInt(range);
+        start = System.nanoTime();
+        slist.remove(val);
+        mid = System.nanoTime();
+        times[2][i] = mid - start;
+      } // for
+    for (long[] row : times)
+      Arrays.sort(row);
+    return times;
+  } // measure(SortedList<Integer>, int, int, Random)
+
+  /**
+   * Find quantile q of sorted.
+   */
+  static long quantile(long[] sorted, double q)
+  {
+    int i = (int) Math.ceil(q * sorted.length) - 1;
+    return sorted[Math.max(0, Math.min(sorted.length - 1, i))];
+  } // quantile(long[], double)
+
+  /**
+   * Find the mean of vals.
+   */
+  static double mean(long[] vals)
+  {
+    double sum = 0;
+    for (long val : vals)
+      sum += val;
+    return sum / vals.length;
+  } // mean(long[])
+
+  // +---------+---------------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Fill slist with about n values, warm it up, time ops calls of each
+   * operation, and print a table of the results under name.
+   */
+  public static void analyze(PrintWriter pen, String name,
+                             SortedList<Integer> slist, int n, int ops)
+  {
+    Random random = new Random(n);
+    int range = 2 * n;
+    while (slist.length() < n)
+      slist.add(random.nextInt(range));
+    // A first round, so that the JIT has settled before we measure
+    measure(slist, range, ops, random);
+    long[][] times = measure(slist, range, ops, random);
+
+    pen.println(name + " (n = " + n + ", times in ns)");
+    pen.printf("%-10s%10s", "operation", "mean");
+    for (double q : QUANTILES)
+      pen.printf("%10s", "p" + (100 * q));
+    pen.printf("%10s%n", "max");
+    for (int op = 0; op < OPERATIONS.length; op++)
+      {
+        pen.printf("%-10s%10.1f", OPERATIONS[op], mean(times[op]));
+        for (double q : QUANTILES)
+          pen.printf("%10d", quantile(times[op], q));
+        pen.printf("%10d%n", times[op][ops - 1]);
+      } // for
+    pen.println();
+  } // analyze(PrintWriter, String, SortedList<Integer>, int, int)
+
+  /**
+   * Compare the latencies of the lists named on the command line
+   * (by default, the randomized and deterministic skip lists).
+   */
+  @SuppressWarnings("unchecked")
+  public static void main(String[] args)
+    throws Exception
+  {
+    PrintWriter pen = new PrintWriter(System.out, true);
+    int n = (args.length > 0) ? Integer.parseInt(args[0]) : 100000;
+    int ops = (args.length > 1) ? Integer.parseInt(args[1]) : 500000;
+    String[] cnames =
+        (args.length > 2) ? Arrays.copyOfRange(args, 2, args.length)
+                          : new String[] { "taojava.util.SkipList",
+                                           "taojava.util.DeterministicSkipList" };
+    for (String cname : cnames)
+      {
+        Class<?> c = Class.forName(cname);
+        analyze(pen, c.getSimpleName(),
+                (SortedList<Integer>) c.getDeclaredConstructor().newInstance(),
+                n, ops);
+      } // for
+    pen.close();
+  } // main(String[])
+} // class LatencyAnalyzer
@@ -0,0 +1,136 @@
+package taojava.analysis;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import java.util.ArrayList;
+
+/**
+ * Comparisons of analysis results against a stored baseline.  The
+ * baseline is a CSV file in the format produced by
+ * SortedListAnalyzer.analyzeCSV.  For each phase, we compute a 95%
+ * confidence interval for the mean time of the baseline and of the
+ * current run, and we flag the phase as a regression if the two
+ * intervals do not overlap and the current run is the slower one.
+ */
+public class RegressionCheck
+{
+  // +-----------+-------------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * Two-sided 95% critical values of Student's t distribution for
+   * 1 to 30 degrees of freedom.  Beyond that, we use the normal
+   * approximation.
+   */
+  static final double[] T95 = { 12.706, 4.303, 3.182, 2.776, 2.571, 2.447,
+                               2.365, 2.306, 2.262, 2.228, 2.201, 2.179,
+                               2.160, 2.145, 2.131, 2.120, 2.110, 2.101,
+                               2.093, 2.086, 2.080, 2.074, 2.069, 2.064,
+                               2.060, 2.056, 2.052, 2.048, 2.045, 2.042 };
+
+  // +------------+------------------------------------------------------
+  // | Statistics |
+  // +------------+
+
+  /**
+   * Compute the mean of column col of the rounds.
+   */
+  static double mean(long[][] rounds, int col)
+  {
+    double sum = 0;
+    for (long[] round : rounds)
+      sum += round[col];
+    return sum / rounds.length;
+  } // mean(long[][], int)
+
+  /**
+   * Compute half the width of the 95% confidence interval for the
+   * mean of column col of the rounds.
+   */
+  static double halfWidth(long[][] rounds, int col)
+  {
+    int reps = rounds.length;
+    if (reps < 2)
+      return 0;
+    double mean = mean(rounds, col);
+    double squares = 0;
+    for (long[] round : rounds)
+      squares += (round[col] - mean) * (round[col] - mean);
+    double stddev = Math.sqrt(squares / (reps - 1));
+    double t = (reps - 1 <= T95.length) ? T95[reps - 2] : 1.96;
+    return t * stddev / Math.sqrt(reps);
+  } // halfWidth(long[][], int)
+
+  // +-----------+-------------------------------------------------------
+  // | Baselines |
+  // +-----------+
+
+  /**
+   * Read the rounds stored in a CSV file written by
+   * SortedListAnalyzer.analyzeCSV.  The first column (the round
+   * number) is dropped, so the result has the same shape as the
+   * result of SortedListAnalyzer.rounds.
+   */
+  public static long[][] readCSV(String fname)
+    throws IOException
+  {
+    ArrayList<long[]> rounds = new ArrayList<long[]>();
+    BufferedReader in = new BufferedReader(new FileReader(fname));
+    try
+      {
+        // Skip the heading
+        String line = in.readLine();
+        while ((line = in.readLine()) != null)
+          {
+            if (line.trim().length() == 0)
+              continue;
+            String[] fields = line.split(",");
+            long[] round = new long[fields.length - 1];
+            for (int i = 0; i < round.length; i++)
+              round[i] = Long.parseLong(fields[i + 1].trim());
+            rounds.add(round);
+          } // while
+      } // try
+    finally
+      {
+        in.close();
+      } // finally
+    return rounds.toArray(new long[rounds.size()][]);
+  } // readCSV(String)
+
+  /**
+   * Compare the current rounds to the baseline rounds, printing one
+   * line per phase.
+   *
+   * @return regressions
+   *   The number of phases whose current confidence interval lies
+   *   entirely above the baseline confidence interval.
+   */
+  public static int compare(PrintWriter pen, long[][] baseline,
+                            long[][] current)
+  {
+    int regressions = 0;
+    pen.printf("%-8s%18s%18s%9s\n", "phase", "baseline", "current",
+               "change");
+    for (int i = 0; i < SortedListAnalyzer.PHASES.length; i++)
+      {
+        double oldMean = mean(baseline, i);
+        double oldHalf = halfWidth(baseline, i);
+        double newMean = mean(current, i);
+        double newHalf = halfWidth(current, i);
+        double change = (oldMean == 0) ? 0 : 100 * (newMean - oldMean) / oldMean;
+        boolean regressed = (newMean - newHalf) > (oldMean + oldHalf);
+        if (regressed)
+          regressions++;
+        pen.printf("%-8s%10.1f +/-%5.1f%10.1f +/-%5.1f%+8.1f%%%s\n",
+                   SortedListAnalyzer.PHASES[i], oldMean, oldHalf, newMean,
+                   newHalf, change, regressed ? "  REGRESSION" : "");
+      } // for (i)
+    pen.flush();
+    return regressions;
+  } // compare(PrintWriter, long[][], long[][])
+} // class RegressionCheck
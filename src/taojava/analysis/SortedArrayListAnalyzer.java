@@ -1,5 +1,6 @@
 package taojava.analysis;
 
+import java.io.IOException;
 import java.io.PrintWriter;
 
 import taojava.util.SortedArrayList;
@@ -13,10 +14,15 @@ public class SortedArrayListAnalyzer
 {
 
   public static void main(String[] args)
+    throws IOException
   {
     PrintWriter pen = new PrintWriter(System.out, true);
-    SortedListAnalyzer.analyze(pen, new SortedArrayList<Integer>(), 4000, 20);
+    int regressions =
+        SortedListAnalyzer.run(args, pen, new SortedArrayList<Integer>(),
+                               4000, 20);
     pen.close();
+    if (regressions > 0)
+      System.exit(1);
   } // main(String[])
 
 } // SortedArrayListAnalyzer
@@ -1,5 +1,6 @@
 package taojava.analysis;
 
+import java.io.IOException;
 import java.io.PrintWriter;
 
 import taojava.util.SortedLinkedList;
@@ -13,10 +14,15 @@ public class SortedLinkedListAnalyzer
 {
 
   public static void main(String[] args)
+    throws IOException
   {
     PrintWriter pen = new PrintWriter(System.out, true);
-    SortedListAnalyzer.analyze(pen, new SortedLinkedList<Integer>(), 16000, 20);
+    int regressions =
+        SortedListAnalyzer.run(args, pen, new SortedLinkedList<Integer>(),
+                               16000, 20);
     pen.close();
+    if (regressions > 0)
+      System.exit(1);
   } // main(String[])
 
 } // SortedArrayListAnalyzer
@@ -1,5 +1,6 @@
 package taojava.analysis;
 
+import java.io.IOException;
 import java.io.PrintWriter;
 
 import java.util.Iterator;
@@ -15,6 +16,22 @@ import taojava.util.SortedList;
  */
 public class SortedListAnalyzer
 {
+  // +-----------+-------------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The names of the phases, in the order in which they appear in the
+   * array returned by analyze(SortedList<Integer>, int).
+   */
+  public static final String[] PHASES = { "total", "add/1", "index",
+                                         "iterate", "add/2", "rem/1",
+                                         "rem/2" };
+
+  // +----------+--------------------------------------------------------
+  // | Analysis |
+  // +----------+
+
   /**
    * Run some simple analysis on a SortedList, using N (or multiples 
    * of N) steps.  Adds N random elements, looks up N elements by index,
@@ -84,7 +101,7 @@ public class SortedListAnalyzer
         if (it.next() % 2 == 0)
           it.remove();
       } // while (it.hasNext())
-    removes2.stop();
+    removes1.stop();
 
     // Second set of removals
     removes2.start();
@@ -128,4 +145,120 @@ public class SortedListAnalyzer
     pen.printf("Average  %8d%8d%8d%8d%8d%8d%8d\n", averages[1], averages[2],
                averages[3], averages[4], averages[5], averages[6], averages[0]);
   } // analyze(PrintWriter, SortedList<Integer>, int, int)
+
+  /**
+   * Do reps individual analyses and return all of the results.  Row
+   * r of the result is the array returned by the rth analysis.
+   */
+  public static long[][] rounds(SortedList<Integer> sl, int n, int reps)
+  {
+    long[][] rounds = new long[reps][];
+    for (int rep = 0; rep < reps; rep++)
+      rounds[rep] = analyze(sl, n);
+    return rounds;
+  } // rounds(SortedList<Integer>, int, int)
+
+  // +--------------------------+----------------------------------------
+  // | Machine-Readable Results |
+  // +--------------------------+
+
+  /**
+   * Do a few individual analyses, printing out the results of each
+   * round as one line of comma-separated values.  The first line
+   * names the columns.
+   *
+   * @return rounds
+   *   The results of each round, as in rounds(SortedList<Integer>,
+   *   int, int).
+   */
+  public static long[][] analyzeCSV(PrintWriter pen, SortedList<Integer> sl,
+                                    int n, int reps)
+  {
+    pen.print("round");
+    for (String phase : PHASES)
+      pen.print("," + phase);
+    pen.println();
+    long[][] rounds = new long[reps][];
+    for (int rep = 0; rep < reps; rep++)
+      {
+        rounds[rep] = analyze(sl, n);
+        pen.print(rep);
+        for (long time : rounds[rep])
+          pen.print("," + time);
+        pen.println();
+      } // for (rep)
+    pen.flush();
+    return rounds;
+  } // analyzeCSV(PrintWriter, SortedList<Integer>, int, int)
+
+  /**
+   * Do a few individual analyses, printing out the results as a
+   * single JSON object of the form
+   * <pre>
+   *   {"n": 1000, "reps": 2, "phases": ["total", ...],
+   *    "rounds": [[12, 3, ...], [11, 3, ...]]}
+   * </pre>
+   *
+   * @return rounds
+   *   The results of each round, as in rounds(SortedList<Integer>,
+   *   int, int).
+   */
+  public static long[][] analyzeJSON(PrintWriter pen,
+                                     SortedList<Integer> sl, int n, int reps)
+  {
+    long[][] rounds = rounds(sl, n, reps);
+    pen.print("{\"n\": " + n + ", \"reps\": " + reps + ", \"phases\": [");
+    for (int i = 0; i < PHASES.length; i++)
+      pen.print((i == 0 ? "" : ", ") + "\"" + PHASES[i] + "\"");
+    pen.print("],\n \"rounds\": [");
+    for (int rep = 0; rep < reps; rep++)
+      {
+        pen.print(rep == 0 ? "[" : ",\n            [");
+        for (int i = 0; i < rounds[rep].length; i++)
+          pen.print((i == 0 ? "" : ", ") + rounds[rep][i]);
+        pen.print("]");
+      } // for (rep)
+    pen.println("]}");
+    return rounds;
+  } // analyzeJSON(PrintWriter, SortedList<Integer>, int, int)
+
+  // +---------+---------------------------------------------------------
+  // | Drivers |
+  // +---------+
+
+  /**
+   * Analyze sl according to the command-line arguments given to
+   * one of the analyzer drivers.  With no arguments, prints the
+   * usual table.  The first argument may also be
+   * <ul>
+   *   <li>"csv", to print each round as comma-separated values;</li>
+   *   <li>"json", to print all of the rounds as a JSON object; or</li>
+   *   <li>"compare", followed by the name of a CSV file produced by
+   *     an earlier "csv" run, to compare against that baseline.</li>
+   * </ul>
+   *
+   * @return regressions
+   *   The number of phases that regressed against the baseline
+   *   (always 0 if we are not comparing).
+   */
+  public static int run(String[] args, PrintWriter pen,
+                        SortedList<Integer> sl, int n, int reps)
+    throws IOException
+  {
+    if (args.length == 0)
+      analyze(pen, sl, n, reps);
+    else if (args[0].equals("csv"))
+      analyzeCSV(pen, sl, n, reps);
+    else if (args[0].equals("json"))
+      analyzeJSON(pen, sl, n, reps);
+    else if (args[0].equals("compare") && (args.length == 2))
+      {
+        long[][] baseline = RegressionCheck.readCSV(args[1]);
+        return RegressionCheck.compare(pen, baseline, rounds(sl, n, reps));
+      } // if we are comparing
+    else
+      throw new IllegalArgumentException("Usage: [csv | json | "
+                                         + "compare BASELINE.csv]");
+    return 0;
+  } // run(String[], PrintWriter, SortedList<Integer>, int, int)
 } // class SortedListAnalyzer
@@ -0,0 +1,29 @@
+package taojava.analysis;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import taojava.util.UnrolledSortedList;
+
+/**
+ * Quick and dirty analysis of UnrolledSortedLists.
+ */
+public class UnrolledSortedListAnalyzer
+{
+
+  public static void main(String[] args)
+    throws IOException
+  {
+    PrintWriter pen = new PrintWriter(System.out, true);
+    int regressions =
+        SortedListAnalyzer.run(args, pen, new UnrolledSortedList<Integer>(),
+                               32000, 100);
+    pen.close();
+    if (regressions > 0)
+      System.exit(1);
+  } // main(String[])
+
+} // UnrolledSortedListAnalyzer
+
+
+
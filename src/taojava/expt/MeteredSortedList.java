@@ -0,0 +1,302 @@
+package taojava.expt;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.LongAdder;
+
+import taojava.util.SortedList;
+
+/**
+ * Sorted lists that keep cheap statistics about themselves.  Unlike
+ * VerboseSortedList, which prints a line for every call, a metered
+ * list only bumps a few striped counters per call, so it is cheap
+ * enough to leave on.  Operations slower than a threshold are also
+ * reported as Java Flight Recorder events (see SlowOperationEvent).
+ *
+ * The counters may be read at any time, from any thread, through
+ * snapshot(), which never blocks the operations on the list.
+ */
+public class MeteredSortedList<T extends Comparable<T>>
+    implements SortedList<T>
+{
+  // +-----------+-------------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The operations we meter.
+   */
+  public static final String[] OPERATIONS = { "add", "contains", "remove",
+                                             "get", "length", "next" };
+
+  static final int ADD = 0;
+  static final int CONTAINS = 1;
+  static final int REMOVE = 2;
+  static final int GET = 3;
+  static final int LENGTH = 4;
+  static final int NEXT = 5;
+
+  /**
+   * The number of latency buckets.  Bucket b counts operations that
+   * took fewer than 2^b nanoseconds (and at least 2^(b-1)); the last
+   * bucket also counts everything slower.
+   */
+  public static final int BUCKETS = 40;
+
+  // +---------------+---------------------------------------------------
+  // | Inner Classes |
+  // +---------------+
+
+  /**
+   * An immutable copy of the statistics of a metered list.
+   */
+  public static class Snapshot
+  {
+    /**
+     * counts[op] is the number of calls to OPERATIONS[op].
+     */
+    public final long[] counts;
+
+    /**
+     * histograms[op][b] is the number of calls to OPERATIONS[op]
+     * that fell into latency bucket b.
+     */
+    public final long[][] histograms;
+
+    /**
+     * The number of operations reported as slow.
+     */
+    public final long slow;
+
+    /**
+     * The length of the list after the most recent modification.
+     */
+    public final int length;
+
+    Snapshot(long[] counts, long[][] histograms, long slow, int length)
+    {
+      this.counts = counts;
+      this.histograms = histograms;
+      this.slow = slow;
+      this.length = length;
+    } // Snapshot(long[], long[][], long, int)
+
+    /**
+     * Estimate the qth quantile (0 <= q <= 1) of the latency of
+     * OPERATIONS[op], in nanoseconds.  The estimate is the upper
+     * bound of the bucket that contains the quantile, so it is
+     * accurate to within a factor of two.
+     */
+    public long quantile(int op, double q)
+    {
+      long target = (long) Math.ceil(q * this.counts[op]);
+      long seen = 0;
+      for (int b = 0; b < BUCKETS; b++)
+        {
+          seen += this.histograms[op][b];
+          if ((seen >= target) && (seen > 0))
+            return 1L << b;
+        } // for (b)
+      return 0;
+    } // quantile(int, double)
+  } // class Snapshot
+
+  // +--------+----------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The underlying sorted list.
+   */
+  SortedList<T> slist;
+
+  /**
+   * The name we use for the sorted list.
+   */
+  String name;
+
+  /**
+   * Operations that take at least this many nanoseconds are reported
+   * as slow.
+   */
+  long threshold;
+
+  /**
+   * The number of calls to each operation.
+   */
+  LongAdder[] counts;
+
+  /**
+   * The latency histograms for each operation.
+   */
+  LongAdder[][] histograms;
+
+  /**
+   * The number of slow operations.
+   */
+  LongAdder slow;
+
+  /**
+   * The length of the list after the most recent modification.
+   */
+  volatile int length;
+
+  // +--------------+----------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Wrap slist so that its operations are metered.  Operations that
+   * take at least threshold nanoseconds are reported as slow.
+   */
+  public MeteredSortedList(SortedList<T> slist, String name, long threshold)
+  {
+    this.slist = slist;
+    this.name = name;
+    this.threshold = threshold;
+    this.counts = new LongAdder[OPERATIONS.length];
+    this.histograms = new LongAdder[OPERATIONS.length][BUCKETS];
+    for (int op = 0; op < OPERATIONS.length; op++)
+      {
+        this.counts[op] = new LongAdder();
+        for (int b = 0; b < BUCKETS; b++)
+          this.histograms[op][b] = new LongAdder();
+      } // for (op)
+    this.slow = new LongAdder();
+    this.length = slist.length();
+  } // MeteredSortedList(SortedList<T>, String, long)
+
+  // +---------+---------------------------------------------------------
+  // | Helpers |
+  // +---------+
+
+  /**
+   * Record a call to OPERATIONS[op] that started at start.
+   */
+  void record(int op, long start)
+  {
+    long nanos = System.nanoTime() - start;
+    this.counts[op].increment();
+    int bucket = 64 - Long.numberOfLeadingZeros(nanos);
+    this.histograms[op][Math.min(bucket, BUCKETS - 1)].increment();
+    if (nanos >= this.threshold)
+      {
+        this.slow.increment();
+        SlowOperationEvent event = new SlowOperationEvent();
+        if (event.isEnabled())
+          {
+            event.list = this.name;
+            event.operation = OPERATIONS[op];
+            event.nanos = nanos;
+            event.length = this.length;
+            event.commit();
+          } // if the event is enabled
+      } // if the operation was slow
+  } // record(int, long)
+
+  // +-----------------------+-------------------------------------------
+  // | Methods from Iterable |
+  // +-----------------------+
+
+  /**
+   * Return an iterator that steps through the values of the list from
+   * smallest to largest, metering each call to next.
+   */
+  public Iterator<T> iterator()
+  {
+    return new Iterator<T>()
+      {
+        Iterator<T> core = slist.iterator();
+
+        public T next()
+        {
+          long start = System.nanoTime();
+          T val = core.next();
+          record(NEXT, start);
+          return val;
+        } // next()
+
+        public boolean hasNext()
+        {
+          return core.hasNext();
+        } // hasNext()
+
+        public void remove()
+        {
+          long start = System.nanoTime();
+          core.remove();
+          MeteredSortedList.this.length = slist.length();
+          record(REMOVE, start);
+        } // remove()
+      }; // new Iterator<T>
+  } // iterator()
+
+  // +------------------------+------------------------------------------
+  // | Methods from SimpleSet |
+  // +------------------------+
+
+  public void add(T val)
+  {
+    long start = System.nanoTime();
+    slist.add(val);
+    this.length = slist.length();
+    record(ADD, start);
+  } // add(T val)
+
+  public boolean contains(T val)
+  {
+    long start = System.nanoTime();
+    boolean result = slist.contains(val);
+    record(CONTAINS, start);
+    return result;
+  } // contains(T)
+
+  public void remove(T val)
+  {
+    long start = System.nanoTime();
+    slist.remove(val);
+    this.length = slist.length();
+    record(REMOVE, start);
+  } // remove(T)
+
+  // +--------------------------+----------------------------------------
+  // | Methods from SemiIndexed |
+  // +--------------------------+
+
+  public T get(int i)
+  {
+    long start = System.nanoTime();
+    T result = slist.get(i);
+    record(GET, start);
+    return result;
+  } // get(int)
+
+  public int length()
+  {
+    long start = System.nanoTime();
+    int result = slist.length();
+    record(LENGTH, start);
+    return result;
+  } // length()
+
+  // +---------------+---------------------------------------------------
+  // | Other Methods |
+  // +---------------+
+
+  /**
+   * Take a snapshot of the statistics.  The counters are read one at
+   * a time while the list may still be in use, so the snapshot is
+   * not atomic, but each counter is accurate as of when it was read.
+   */
+  public Snapshot snapshot()
+  {
+    long[] counts = new long[OPERATIONS.length];
+    long[][] histograms = new long[OPERATIONS.length][BUCKETS];
+    for (int op = 0; op < OPERATIONS.length; op++)
+      {
+        counts[op] = this.counts[op].sum();
+        for (int b = 0; b < BUCKETS; b++)
+          histograms[op][b] = this.histograms[op][b].sum();
+      } // for (op)
+    return new Snapshot(counts, histograms, this.slow.sum(), this.length);
+  } // snapshot()
+} // class MeteredSortedList
@@ -0,0 +1,45 @@
+package taojava.expt;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * A Java Flight Recorder event for a sorted-list operation that took
+ * longer than the threshold of its MeteredSortedList.
+ */
+@Name("taojava.SlowOperation")
+@Label("Slow Sorted List Operation")
+@Category("Sorted Lists")
+@Description("A sorted list operation that exceeded its latency threshold")
+public class SlowOperationEvent
+    extends Event
+{
+  /**
+   * The name of the list.
+   */
+  @Label("List")
+  String list;
+
+  /**
+   * The operation (add, contains, ...).
+   */
+  @Label("Operation")
+  String operation;
+
+  /**
+   * How long the operation took.
+   */
+  @Label("Duration")
+  @Timespan(Timespan.NANOSECONDS)
+  long nanos;
+
+  /**
+   * The length of the list after the operation.
+   */
+  @Label("Length")
+  int length;
+} // class SlowOperationEvent
@@ -0,0 +1,180 @@
+package taojava.expt;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayList;
+
+/**
+ * A reader for the trace files written by TraceRecorder.  The normal
+ * sequence is
+ * <pre>
+ *   TraceReader in = new TraceReader(fname);
+ *   while (in.next())
+ *     {
+ *       ... in.op, in.id, in.arg, in.value, in.nanos ...
+ *     }
+ *   in.close();
+ * </pre>
+ * DEFINE records are handled by the reader and never returned.
+ */
+public class TraceReader
+{
+  // +--------+----------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The stream we read from.
+   */
+  DataInputStream in;
+
+  /**
+   * The name of the traced list.
+   */
+  public final String name;
+
+  /**
+   * The symbols defined so far, indexed by id.
+   */
+  ArrayList<String> symbols;
+
+  /**
+   * The operation of the current record.
+   */
+  public byte op;
+
+  /**
+   * The kind of the value of the current record.
+   */
+  public byte kind;
+
+  /**
+   * The iterator number (or length, for DUMP) of the current record.
+   */
+  public int id;
+
+  /**
+   * The index or result of the current record.
+   */
+  public long arg;
+
+  /**
+   * The value of the current record: an Integer, a Long, a String,
+   * or null.
+   */
+  public Object value;
+
+  /**
+   * The time of the current record, in nanoseconds since recording
+   * started.
+   */
+  public long nanos;
+
+  // +--------------+----------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Open a trace file.
+   *
+   * @throws IOException
+   *   if the file cannot be read or is not a trace file.
+   */
+  public TraceReader(String fname)
+    throws IOException
+  {
+    this.in =
+        new DataInputStream(new BufferedInputStream(new FileInputStream(fname),
+                                                    1 << 16));
+    if (this.in.readInt() != TraceRecorder.MAGIC)
+      {
+        this.in.close();
+        throw new IOException(fname + " is not a trace file");
+      } // if the magic number is wrong
+    short version = this.in.readShort();
+    if (version != TraceRecorder.VERSION)
+      {
+        this.in.close();
+        throw new IOException("Unknown trace version " + version);
+      } // if the version is wrong
+    byte[] nameBytes = new byte[this.in.readShort()];
+    this.in.readFully(nameBytes);
+    this.name = new String(nameBytes, StandardCharsets.UTF_8);
+    this.symbols = new ArrayList<String>();
+  } // TraceReader(String)
+
+  // +---------+---------------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Advance to the next record.
+   *
+   * @return more
+   *   true if there was another record, false at the end of the file.
+   */
+  public boolean next()
+    throws IOException
+  {
+    while (true)
+      {
+        int op = this.in.read();
+        if (op < 0)
+          return false;
+        if (op == TraceRecorder.DEFINE)
+          {
+            int sym = this.in.readInt();
+            byte[] bytes = new byte[this.in.readInt()];
+            this.in.readFully(bytes);
+            while (this.symbols.size() <= sym)
+              this.symbols.add(null);
+            this.symbols.set(sym, new String(bytes, StandardCharsets.UTF_8));
+            continue;
+          } // if (op == DEFINE)
+        try
+          {
+            this.op = (byte) op;
+            this.kind = this.in.readByte();
+            this.id = this.in.readInt();
+            this.arg = this.in.readLong();
+            long payload = this.in.readLong();
+            this.nanos = this.in.readLong();
+            switch (this.kind)
+              {
+                case TraceRecorder.INT:
+                  this.value = Integer.valueOf((int) payload);
+                  break;
+                case TraceRecorder.LONG:
+                  this.value = Long.valueOf(payload);
+                  break;
+                case TraceRecorder.SYMBOL:
+                  this.value = this.symbols.get((int) payload);
+                  break;
+                default:
+                  this.value = null;
+              } // switch
+            return true;
+          } // try
+        catch (EOFException e)
+          {
+            // A truncated final record, e.g. from a crashed program
+            return false;
+          } // catch
+      } // while
+  } // next()
+
+  /**
+   * Close the file.
+   */
+  public void close()
+    throws IOException
+  {
+    this.in.close();
+  } // close()
+} // class TraceReader
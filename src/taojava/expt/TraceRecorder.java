@@ -0,0 +1,444 @@
+package taojava.expt;
+
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A low-overhead recorder of sorted-list calls.  Callers write
+ * fixed-size binary records into a lock-free ring buffer; a
+ * background thread drains the buffer to a file through a buffered
+ * FileChannel.  Use TraceReader (or TraceRenderer, for the text that
+ * VerboseSortedList would have printed) to read the file back.
+ *
+ * The file starts with a header (the magic number, the format version,
+ * and the name of the list) followed by records.  Each record starts
+ * with an operation byte.  DEFINE records give the text of a symbol
+ * (a value that is not an Integer or Long) and are written before the
+ * first record that uses the symbol.  All other records have the form
+ * <pre>
+ *   op:byte kind:byte id:int arg:long payload:long nanos:long
+ * </pre>
+ * where id is an iterator number (or the length, for DUMP), arg is an
+ * index or a result, payload encodes the value according to kind, and
+ * nanos is the time since the recorder was created.
+ */
+public class TraceRecorder
+{
+  // +-----------+-------------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The magic number at the start of every trace file ("TJTR").
+   */
+  public static final int MAGIC = 0x544A5452;
+
+  /**
+   * The version of the file format.
+   */
+  public static final short VERSION = 1;
+
+  // Operations
+  public static final byte DEFINE = 0;
+  public static final byte ADD = 1;
+  public static final byte CONTAINS = 2;
+  public static final byte REMOVE = 3;
+  public static final byte GET = 4;
+  public static final byte LENGTH = 5;
+  public static final byte HAS_NEXT = 6;
+  public static final byte NEXT = 7;
+  public static final byte DUMP = 8;
+  public static final byte ITERATOR_REMOVE = 9;
+
+  // Kinds of values
+  public static final byte NONE = 0;
+  public static final byte NULL = 1;
+  public static final byte INT = 2;
+  public static final byte LONG = 3;
+  public static final byte SYMBOL = 4;
+
+  /**
+   * The size of a record (other than a DEFINE record) in the file.
+   */
+  public static final int RECORD_SIZE = 1 + 1 + 4 + 8 + 8 + 8;
+
+  /**
+   * The number of longs a record occupies in the ring buffer.
+   */
+  static final int SLOT_SIZE = 4;
+
+  // +--------+----------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The name of the traced list.
+   */
+  String name;
+
+  /**
+   * The time at which the recorder was created.
+   */
+  long origin;
+
+  /**
+   * The contents of the ring buffer, SLOT_SIZE longs per slot.
+   */
+  long[] ring;
+
+  /**
+   * The sequence numbers of the slots.  A slot whose sequence number
+   * equals a producer's position is free for that producer; one whose
+   * sequence number is one more than the consumer's position is full.
+   */
+  AtomicLongArray sequences;
+
+  /**
+   * capacity - 1, where capacity is the (power of two) number of slots.
+   */
+  int mask;
+
+  /**
+   * The next position to be claimed by a producer.
+   */
+  AtomicLong tail;
+
+  /**
+   * The next position to be drained.  Only used by the drainer.
+   */
+  long head;
+
+  /**
+   * The ids of the symbols we've seen.
+   */
+  ConcurrentHashMap<Object, Integer> symbols;
+
+  /**
+   * The text of each symbol, indexed by id.  Guarded by itself.
+   */
+  ArrayList<String> symbolNames;
+
+  /**
+   * The number of symbols already defined in the file.  Only used by
+   * the drainer.
+   */
+  int defined;
+
+  /**
+   * The file we write to.
+   */
+  FileChannel channel;
+
+  /**
+   * The buffer we drain into.  Only used by the drainer.
+   */
+  ByteBuffer out;
+
+  /**
+   * The thread that drains the ring buffer.
+   */
+  Thread drainer;
+
+  /**
+   * Set when the recorder is closed.
+   */
+  volatile boolean closed;
+
+  /**
+   * The first error the drainer encountered, if any.
+   */
+  volatile IOException error;
+
+  // +--------------+----------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a recorder that writes the trace of the list named name
+   * to the file fname, buffering up to 2^16 records.
+   */
+  public TraceRecorder(String fname, String name)
+    throws IOException
+  {
+    this(fname, name, 1 << 16);
+  } // TraceRecorder(String, String)
+
+  /**
+   * Create a recorder that writes the trace of the list named name
+   * to the file fname, buffering up to capacity records (rounded up
+   * to a power of two).
+   */
+  public TraceRecorder(String fname, String name, int capacity)
+    throws IOException
+  {
+    int slots = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+    this.name = name;
+    this.origin = System.nanoTime();
+    this.ring = new long[slots * SLOT_SIZE];
+    this.sequences = new AtomicLongArray(slots);
+    for (int i = 0; i < slots; i++)
+      this.sequences.set(i, i);
+    this.mask = slots - 1;
+    this.tail = new AtomicLong();
+    this.head = 0;
+    this.symbols = new ConcurrentHashMap<Object, Integer>();
+    this.symbolNames = new ArrayList<String>();
+    this.defined = 0;
+    this.channel =
+        FileChannel.open(Paths.get(fname), StandardOpenOption.CREATE,
+                         StandardOpenOption.WRITE,
+                         StandardOpenOption.TRUNCATE_EXISTING);
+    this.out = ByteBuffer.allocateDirect(1 << 16);
+    byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+    this.out.putInt(MAGIC);
+    this.out.putShort(VERSION);
+    this.out.putShort((short) nameBytes.length);
+    this.out.put(nameBytes);
+    this.drainer = new Thread(new Runnable()
+      {
+        public void run()
+        {
+          drainLoop();
+        } // run()
+      }, "TraceRecorder-" + name);
+    this.drainer.setDaemon(true);
+    this.drainer.start();
+  } // TraceRecorder(String, String, int)
+
+  // +-----------+-------------------------------------------------------
+  // | Producers |
+  // +-----------+
+
+  /**
+   * Record a call.  Safe to call from any thread.  Blocks (by
+   * spinning) only if the drainer has fallen a full buffer behind.
+   * If the recorder is closed, or the drainer has failed, while we
+   * wait, no slot will ever be freed, so we drop the record instead
+   * (the failure is reported by close).
+   */
+  public void record(byte op, int id, long arg, Object val)
+  {
+    byte kind;
+    long payload;
+    if (val == null)
+      {
+        kind = (op == ADD || op == CONTAINS || op == REMOVE || op == NEXT
+                || op == GET || op == DUMP) ? NULL : NONE;
+        payload = 0;
+      } // if (val == null)
+    else if (val instanceof Integer)
+      {
+        kind = INT;
+        payload = ((Integer) val).intValue();
+      } // if val is an Integer
+    else if (val instanceof Long)
+      {
+        kind = LONG;
+        payload = ((Long) val).longValue();
+      } // if val is a Long
+    else
+      {
+        kind = SYMBOL;
+        payload = symbol(val);
+      } // otherwise
+    long nanos = System.nanoTime() - this.origin;
+
+    // Claim a slot
+    long pos = this.tail.getAndIncrement();
+    int slot = (int) (pos & this.mask);
+    while (this.sequences.get(slot) != pos)
+      {
+        if (this.closed || (this.error != null))
+          return;
+        Thread.yield();
+      } // while
+    // Fill it in and publish it
+    int base = slot * SLOT_SIZE;
+    this.ring[base] = ((long) op << 56) | ((long) kind << 48)
+                      | (id & 0xFFFFFFFFL);
+    this.ring[base + 1] = arg;
+    this.ring[base + 2] = payload;
+    this.ring[base + 3] = nanos;
+    this.sequences.lazySet(slot, pos + 1);
+  } // record(byte, int, long, Object)
+
+  /**
+   * Record a call that involves no value, such as a call to length.
+   */
+  public void record(byte op, int id, long arg)
+  {
+    record(op, id, arg, null);
+  } // record(byte, int, long)
+
+  /**
+   * Get the id of a symbol, assigning a new one if necessary.
+   */
+  int symbol(Object val)
+  {
+    Integer id = this.symbols.get(val);
+    if (id != null)
+      return id;
+    synchronized (this.symbolNames)
+      {
+        id = this.symbols.get(val);
+        if (id == null)
+          {
+            id = this.symbolNames.size();
+            this.symbolNames.add(val.toString());
+            this.symbols.put(val, id);
+          } // if the symbol is still new
+        return id;
+      } // synchronized
+  } // symbol(Object)
+
+  // +---------+---------------------------------------------------------
+  // | Drainer |
+  // +---------+
+
+  /**
+   * Repeatedly drain the ring buffer until the recorder is closed.
+   */
+  void drainLoop()
+  {
+    try
+      {
+        while (true)
+          {
+            // Read closed first, so that we drain everything recorded
+            // before the recorder was closed.
+            boolean done = this.closed;
+            if (drain() == 0)
+              {
+                flush();
+                if (done)
+                  break;
+                LockSupport.parkNanos(100000);
+              } // if there was nothing to drain
+          } // while
+      } // try
+    catch (IOException e)
+      {
+        this.error = e;
+      } // catch
+  } // drainLoop()
+
+  /**
+   * Move every published record from the ring buffer to the output
+   * buffer.
+   *
+   * @return count
+   *   The number of records drained.
+   */
+  int drain()
+    throws IOException
+  {
+    int count = 0;
+    while (true)
+      {
+        int slot = (int) (this.head & this.mask);
+        if (this.sequences.get(slot) != this.head + 1)
+          return count;
+        int base = slot * SLOT_SIZE;
+        long header = this.ring[base];
+        byte kind = (byte) (header >>> 48);
+        long payload = this.ring[base + 2];
+        if (kind == SYMBOL)
+          define((int) payload);
+        if (this.out.remaining() < RECORD_SIZE)
+          flush();
+        this.out.put((byte) (header >>> 56));
+        this.out.put(kind);
+        this.out.putInt((int) header);
+        this.out.putLong(this.ring[base + 1]);
+        this.out.putLong(payload);
+        this.out.putLong(this.ring[base + 3]);
+        // Free the slot for the producer one lap ahead
+        this.sequences.lazySet(slot, this.head + this.mask + 1);
+        this.head++;
+        count++;
+      } // while
+  } // drain()
+
+  /**
+   * Make sure that every symbol up to and including id is defined in
+   * the file.
+   */
+  void define(int id)
+    throws IOException
+  {
+    while (this.defined <= id)
+      {
+        String text;
+        synchronized (this.symbolNames)
+          {
+            text = this.symbolNames.get(this.defined);
+          } // synchronized
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (this.out.remaining() < 9 + bytes.length)
+          flush();
+        if (this.out.remaining() < 9 + bytes.length)
+          this.out = ByteBuffer.allocateDirect(9 + bytes.length);
+        this.out.put(DEFINE);
+        this.out.putInt(this.defined);
+        this.out.putInt(bytes.length);
+        this.out.put(bytes);
+        this.defined++;
+      } // while
+  } // define(int)
+
+  /**
+   * Write the output buffer to the file.
+   */
+  void flush()
+    throws IOException
+  {
+    this.out.flip();
+    while (this.out.hasRemaining())
+      this.channel.write(this.out);
+    this.out.clear();
+  } // flush()
+
+  // +---------------+---------------------------------------------------
+  // | Other Methods |
+  // +---------------+
+
+  /**
+   * Get the name of the traced list.
+   */
+  public String name()
+  {
+    return this.name;
+  } // name()
+
+  /**
+   * Wait for everything recorded so far to be written, then close
+   * the file.  Records made after closing are lost.
+   */
+  public void close()
+    throws IOException
+  {
+    this.closed = true;
+    try
+      {
+        this.drainer.join();
+      } // try
+    catch (InterruptedException e)
+      {
+        Thread.currentThread().interrupt();
+      } // catch
+    this.channel.close();
+    if (this.error != null)
+      throw this.error;
+  } // close()
+} // class TraceRecorder
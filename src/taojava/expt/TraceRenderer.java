@@ -0,0 +1,85 @@
+package taojava.expt;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Render a trace file written by TraceRecorder in the text format
+ * that VerboseSortedList prints.
+ */
+public class TraceRenderer
+{
+  /**
+   * Render the trace in fname.
+   */
+  public static void render(PrintWriter pen, String fname)
+    throws IOException
+  {
+    TraceReader in = new TraceReader(fname);
+    String name = in.name;
+    try
+      {
+        while (in.next())
+          {
+            switch (in.op)
+              {
+                case TraceRecorder.ADD:
+                  pen.println(name + ".add(" + in.value + ")");
+                  break;
+                case TraceRecorder.CONTAINS:
+                  pen.println(name + ".contains(" + in.value + ") -> "
+                              + (in.arg != 0));
+                  break;
+                case TraceRecorder.REMOVE:
+                  pen.println(name + ".remove(" + in.value + ")");
+                  break;
+                case TraceRecorder.GET:
+                  pen.println(name + ".get(" + in.arg + ") -> " + in.value);
+                  break;
+                case TraceRecorder.LENGTH:
+                  pen.println(name + ".length() -> " + in.arg);
+                  break;
+                case TraceRecorder.HAS_NEXT:
+                  pen.println(name + ".iterator-" + in.id + ".hasNext() -> "
+                              + (in.arg != 0));
+                  break;
+                case TraceRecorder.NEXT:
+                  pen.println(name + ".iterator-" + in.id + ".next() -> "
+                              + in.value);
+                  break;
+                case TraceRecorder.ITERATOR_REMOVE:
+                  pen.println(name + ".iterator-" + in.id + ".remove()");
+                  break;
+                case TraceRecorder.DUMP:
+                  // One record per element; id is the length
+                  if (in.id == 0)
+                    pen.println(name + " is empty");
+                  else
+                    {
+                      pen.print((in.arg == 0) ? (name + " = [") : ", ");
+                      pen.print(in.value);
+                      if (in.arg == in.id - 1)
+                        pen.println("]");
+                    } // else
+                  break;
+                default:
+                  pen.println("# unknown operation " + in.op);
+              } // switch
+          } // while
+      } // try
+    finally
+      {
+        in.close();
+      } // finally
+    pen.flush();
+  } // render(PrintWriter, String)
+
+  public static void main(String[] args)
+    throws IOException
+  {
+    PrintWriter pen = new PrintWriter(System.out, false);
+    for (String fname : args)
+      render(pen, fname);
+    pen.close();
+  } // main(String[])
+} // class TraceRenderer
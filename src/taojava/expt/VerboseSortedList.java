@@ -7,7 +7,11 @@ import java.util.Iterator;
 import taojava.util.SortedList;
 
 /**
- * Sorted lists that print out information about themselves.
+ * Sorted lists that print out information about themselves.  By
+ * default, each call prints a line to a PrintWriter.  For long runs,
+ * a verbose list can instead send compact binary records to a
+ * TraceRecorder, which writes them to a file in the background; use
+ * TraceRenderer to turn that file into the usual text.
  * 
  * @author Samuel A. Rebelsky
  */
@@ -33,6 +37,12 @@ public class VerboseSortedList<T extends Comparable<T>>
    */
   PrintWriter pen;
 
+  /**
+   * The recorder we send binary trace records to.  If null, we print
+   * to pen instead.
+   */
+  TraceRecorder tracer;
+
   /**
    * A count of the iterators we've created.
    */
@@ -54,14 +64,26 @@ public class VerboseSortedList<T extends Comparable<T>>
     this.itnum = 0;
   } // VerboseSortedList(SortedList<T>, String, PrintWriter)
 
+  /**
+   * Wrap slist so that all of the methods record what they are doing
+   * with tracer.
+   */
+  public VerboseSortedList(SortedList<T> slist, TraceRecorder tracer)
+  {
+    this.slist = slist;
+    this.name = tracer.name();
+    this.tracer = tracer;
+    this.itnum = 0;
+  } // VerboseSortedList(SortedList<T>, TraceRecorder)
+
   // +-----------------------+-------------------------------------------
   // | Methods from Iterable |
   // +-----------------------+
 
   /**
-   * Return a read-only iterator (one that does not implement the remove
-   * method) that iterates the values of the list from smallest to
-   * largest.
+   * Return an iterator that iterates the values of the list from
+   * smallest to largest.  The iterator supports remove if the
+   * underlying iterator does.
    */
   public Iterator<T> iterator()
   {
@@ -74,20 +96,30 @@ public class VerboseSortedList<T extends Comparable<T>>
       public T next()
       {
         T val = core.next();
-        pen.println(name + ".iterator-" + id + ".next() -> " + val);
+        if (tracer != null)
+          tracer.record(TraceRecorder.NEXT, id, 0, val);
+        else
+          pen.println(name + ".iterator-" + id + ".next() -> " + val);
         return val;
       } // next()
 
       public boolean hasNext()
       {
         boolean result = core.hasNext();
-        pen.println(name + ".iterator-" + id + ".hasNext() -> " + result);
+        if (tracer != null)
+          tracer.record(TraceRecorder.HAS_NEXT, id, result ? 1 : 0);
+        else
+          pen.println(name + ".iterator-" + id + ".hasNext() -> " + result);
         return result;
       } // hasNext()
 
       public void remove()
       {
-        throw new UnsupportedOperationException();
+        if (tracer != null)
+          tracer.record(TraceRecorder.ITERATOR_REMOVE, id, 0);
+        else
+          pen.println(name + ".iterator-" + id + ".remove()");
+        core.remove();
       } // remove()
     }; // new Iterator<T>
   } // iterator()
@@ -98,20 +130,29 @@ public class VerboseSortedList<T extends Comparable<T>>
 
   public void add(T val)
   {
-    pen.println(name + ".add(" + val + ")");
+    if (tracer != null)
+      tracer.record(TraceRecorder.ADD, 0, 0, val);
+    else
+      pen.println(name + ".add(" + val + ")");
     slist.add(val);
   } // add(T val)
 
   public boolean contains(T val)
   {
     boolean result = slist.contains(val);
-    pen.println(name + ".contains(" + val + ") -> " + result);
+    if (tracer != null)
+      tracer.record(TraceRecorder.CONTAINS, 0, result ? 1 : 0, val);
+    else
+      pen.println(name + ".contains(" + val + ") -> " + result);
     return result;
   } // contains(T)
 
   public void remove(T val)
   {
-    pen.println(name + ".remove(" + val + ")");
+    if (tracer != null)
+      tracer.record(TraceRecorder.REMOVE, 0, 0, val);
+    else
+      pen.println(name + ".remove(" + val + ")");
     slist.remove(val);
   } // remove(T)
 
@@ -122,7 +163,10 @@ public class VerboseSortedList<T extends Comparable<T>>
   public T get(int i)
   {
     T result = slist.get(i);
-    pen.println(name + ".get(" + i + ") -> " + result);
+    if (tracer != null)
+      tracer.record(TraceRecorder.GET, 0, i, result);
+    else
+      pen.println(name + ".get(" + i + ") -> " + result);
     return result;
   } // get(int)
 
@@ -132,7 +176,10 @@ public class VerboseSortedList<T extends Comparable<T>>
   public int length()
   {
     int length = slist.length();
-    pen.println(name + ".length() -> " + length);
+    if (tracer != null)
+      tracer.record(TraceRecorder.LENGTH, 0, length);
+    else
+      pen.println(name + ".length() -> " + length);
     return length;
   } // length()
 
@@ -146,6 +193,14 @@ public class VerboseSortedList<T extends Comparable<T>>
   public void dump()
   {
     int len = slist.length();
+    if (tracer != null)
+      {
+        if (len == 0)
+          tracer.record(TraceRecorder.DUMP, 0, 0);
+        for (int i = 0; i < len; i++)
+          tracer.record(TraceRecorder.DUMP, len, i, slist.get(i));
+        return;
+      } // if we are tracing
     if (len == 0)
       {
         pen.println(name + " is empty");
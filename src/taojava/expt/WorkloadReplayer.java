@@ -0,0 +1,252 @@
+package taojava.expt;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import taojava.util.SortedList;
+
+/**
+ * Replay a workload recorded by a VerboseSortedList (in tracing mode)
+ * against another sorted list.  To record a workload, wrap the live
+ * list with
+ * <pre>
+ *   TraceRecorder recorder = new TraceRecorder("workload.trace", "live");
+ *   SortedList<String> list = new VerboseSortedList<String>(live, recorder);
+ *   ...
+ *   recorder.close();
+ * </pre>
+ * The replay can run as fast as possible or follow the timing of the
+ * original calls.  Either way, each call goes through a
+ * MeteredSortedList, so we can report throughput and latency.
+ *
+ * The recorded values must be Integers, Longs, or Strings, since those
+ * are the only values that TraceReader can reconstruct.
+ */
+public class WorkloadReplayer
+{
+  // +---------------+---------------------------------------------------
+  // | Inner Classes |
+  // +---------------+
+
+  /**
+   * The results of a replay.
+   */
+  public static class Result
+  {
+    /**
+     * The number of calls replayed.
+     */
+    public long calls;
+
+    /**
+     * The number of calls whose results differed from the recorded
+     * results (e.g., because the target list treats duplicates
+     * differently).
+     */
+    public long divergences;
+
+    /**
+     * The time the replay took, in nanoseconds.
+     */
+    public long nanos;
+
+    /**
+     * The latency statistics of the replayed calls.
+     */
+    public MeteredSortedList.Snapshot stats;
+
+    /**
+     * Compute the throughput, in calls per second.
+     */
+    public double throughput()
+    {
+      return (this.nanos == 0) ? 0 : this.calls * 1e9 / this.nanos;
+    } // throughput()
+  } // class Result
+
+  // +---------+---------------------------------------------------------
+  // | Replays |
+  // +---------+
+
+  /**
+   * Replay the workload recorded in fname against target.  If timed
+   * is true, each call waits until the same amount of time has passed
+   * since the start of the replay as had passed since the start of the
+   * recording; otherwise the calls are made as fast as possible.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T extends Comparable<T>> Result
+    replay(String fname, SortedList<T> target, boolean timed)
+      throws IOException
+  {
+    Result result = new Result();
+    MeteredSortedList<T> list =
+        new MeteredSortedList<T>(target, "replay", Long.MAX_VALUE);
+    HashMap<Integer, Iterator<T>> iterators =
+        new HashMap<Integer, Iterator<T>>();
+    TraceReader in = new TraceReader(fname);
+    long first = -1;
+    long start = System.nanoTime();
+    try
+      {
+        while (in.next())
+          {
+            if (timed)
+              {
+                if (first < 0)
+                  first = in.nanos;
+                long due = start + (in.nanos - first);
+                long now;
+                while ((now = System.nanoTime()) < due)
+                  if (due - now > 100000)
+                    Thread.sleep((due - now) / 1000000,
+                                 (int) ((due - now) % 1000000));
+              } // if (timed)
+            T val = (T) in.value;
+            Iterator<T> it;
+            result.calls++;
+            switch (in.op)
+              {
+                case TraceRecorder.ADD:
+                  list.add(val);
+                  break;
+                case TraceRecorder.CONTAINS:
+                  if (list.contains(val) != (in.arg != 0))
+                    result.divergences++;
+                  break;
+                case TraceRecorder.REMOVE:
+                  list.remove(val);
+                  break;
+                case TraceRecorder.GET:
+                case TraceRecorder.DUMP:
+                  // Check against target, so that the check itself
+                  // isn't counted as a call to length
+                  if (in.arg < target.length())
+                    {
+                      T got = list.get((int) in.arg);
+                      if ((got == null) ? (val != null) : !got.equals(val))
+                        result.divergences++;
+                    } // if the index is valid
+                  else
+                    result.divergences++;
+                  break;
+                case TraceRecorder.LENGTH:
+                  if (list.length() != in.arg)
+                    result.divergences++;
+                  break;
+                case TraceRecorder.HAS_NEXT:
+                  it = iterator(iterators, list, in.id);
+                  if (it.hasNext() != (in.arg != 0))
+                    result.divergences++;
+                  break;
+                case TraceRecorder.NEXT:
+                  it = iterator(iterators, list, in.id);
+                  try
+                    {
+                      T got = it.next();
+                      if ((got == null) ? (val != null) : !got.equals(val))
+                        result.divergences++;
+                    } // try
+                  catch (NoSuchElementException e)
+                    {
+                      result.divergences++;
+                    } // catch
+                  break;
+                case TraceRecorder.ITERATOR_REMOVE:
+                  it = iterator(iterators, list, in.id);
+                  try
+                    {
+                      it.remove();
+                    } // try
+                  catch (IllegalStateException e)
+                    {
+                      result.divergences++;
+                    } // catch
+                  break;
+                default:
+                  result.calls--;
+              } // switch
+          } // while
+      } // try
+    catch (InterruptedException e)
+      {
+        Thread.currentThread().interrupt();
+      } // catch
+    finally
+      {
+        in.close();
+      } // finally
+    result.nanos = System.nanoTime() - start;
+    result.stats = list.snapshot();
+    return result;
+  } // replay(String, SortedList<T>, boolean)
+
+  /**
+   * Find the replayed iterator with the given id, creating it if this
+   * is the first time we've seen the id.
+   */
+  static <T extends Comparable<T>> Iterator<T>
+    iterator(HashMap<Integer, Iterator<T>> iterators, SortedList<T> list,
+             int id)
+  {
+    Iterator<T> it = iterators.get(id);
+    if (it == null)
+      {
+        it = list.iterator();
+        iterators.put(id, it);
+      } // if the iterator is new
+    return it;
+  } // iterator(HashMap<Integer, Iterator<T>>, SortedList<T>, int)
+
+  /**
+   * Print a summary of a replay.
+   */
+  public static void report(PrintWriter pen, String title, Result result)
+  {
+    pen.printf("%s: %d calls in %.1f ms (%.0f calls/s), %d divergences\n",
+               title, result.calls, result.nanos / 1e6, result.throughput(),
+               result.divergences);
+    pen.printf("  %-10s%10s%10s%10s%10s\n", "operation", "calls", "p50",
+               "p99", "p99.9");
+    for (int op = 0; op < MeteredSortedList.OPERATIONS.length; op++)
+      {
+        if (result.stats.counts[op] == 0)
+          continue;
+        pen.printf("  %-10s%10d%10d%10d%10d\n",
+                   MeteredSortedList.OPERATIONS[op], result.stats.counts[op],
+                   result.stats.quantile(op, 0.5),
+                   result.stats.quantile(op, 0.99),
+                   result.stats.quantile(op, 0.999));
+      } // for (op)
+    pen.flush();
+  } // report(PrintWriter, String, Result)
+
+  /**
+   * Replay a trace against one or more sorted list classes, e.g.
+   * <pre>
+   *   java taojava.expt.WorkloadReplayer workload.trace timed \
+   *     taojava.util.SkipList taojava.util.SortedArrayList
+   * </pre>
+   * The second argument is "timed" or "fast".  Latencies are upper
+   * bounds in nanoseconds.
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  public static void main(String[] args)
+    throws Exception
+  {
+    PrintWriter pen = new PrintWriter(System.out, true);
+    boolean timed = args[1].equals("timed");
+    for (int i = 2; i < args.length; i++)
+      {
+        SortedList target =
+            (SortedList) Class.forName(args[i]).getDeclaredConstructor()
+                              .newInstance();
+        report(pen, args[i], replay(args[0], target, timed));
+      } // for (i)
+    pen.close();
+  } // main(String[])
+} // class WorkloadReplayer
@@ -0,0 +1,73 @@
+package taojava.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import taojava.util.AdaptiveSortedList;
+
+/**
+ * Tests of adaptive sorted lists.  We use tiny thresholds, so that the
+ * general tests exercise both representations and the moves between
+ * them.
+ */
+public class AdaptiveSortedListTest
+extends SortedListTest
+{
+  @Before
+  public void setup()
+  {
+    this.ints = new AdaptiveSortedList<Integer>(8, 4, 0.25, 16);
+    this.strings = new AdaptiveSortedList<String>(8, 4, 0.25, 16);
+  } // setup
+
+  /**
+   * Verify that a list moves to a skip list while being written and
+   * back to an array while being read, keeping its values throughout.
+   */
+  @Test
+  public void testMigration()
+  {
+    AdaptiveSortedList<Integer> list =
+        new AdaptiveSortedList<Integer>(64, 16, 0.25, 32);
+    for (int i = 0; i < 200; i++)
+      list.add(i);
+    assertTrue(list.isSkipList());
+    assertEquals(200, list.length());
+    for (int i = 0; i < 200; i++)
+      assertTrue(list.contains(i));
+    assertFalse(list.isSkipList());
+    assertEquals(200, list.length());
+    for (int i = 0; i < 200; i++)
+      assertEquals((Integer) i, list.get(i));
+  } // testMigration()
+
+  /**
+   * Verify that calls to get in a skip list do not move the list back
+   * to an array until they outnumber the writes in a window.
+   */
+  @Test
+  public void testGetInSkipList()
+  {
+    AdaptiveSortedList<Integer> list =
+        new AdaptiveSortedList<Integer>(64, 16, 0.25, 32);
+    for (int i = 0; i < 200; i++)
+      list.add(2 * i);
+    assertTrue(list.isSkipList());
+    // Mostly writes, with the odd get
+    for (int i = 0; i < 200; i++)
+      {
+        if (i % 4 == 0)
+          assertEquals((Integer) (2 * i), list.get(i));
+        list.add(2 * i + 1);
+        list.remove(2 * i + 1);
+        assertTrue(list.isSkipList());
+      } // for
+    // Mostly gets
+    for (int i = 0; i < 32; i++)
+      assertEquals((Integer) (2 * i), list.get(i));
+    assertFalse(list.isSkipList());
+    assertEquals(200, list.length());
+  } // testGetInSkipList()
+} // AdaptiveSortedListTest
@@ -0,0 +1,107 @@
+package taojava.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import taojava.util.AugmentedSkipList;
+import taojava.util.Monoids;
+
+/**
+ * Tests of augmented skip lists.
+ */
+public class AugmentedSkipListTest
+extends SortedListTest
+{
+  @Before
+  public void setup()
+  {
+    this.ints =
+        new AugmentedSkipList<Integer, Integer>(Monoids.<Integer> count());
+    this.strings =
+        new AugmentedSkipList<String, String>(Monoids.<String> max());
+  } // setup
+
+  /**
+   * Verify that get, rank, and range summaries agree with a plain list,
+   * through adds, removes, and removes by iterators.
+   */
+  @Test
+  public void testAggregate()
+  {
+    AugmentedSkipList<Integer, Long> sums =
+        new AugmentedSkipList<Integer, Long>(Monoids.<Integer> sum());
+    AugmentedSkipList<Integer, Integer> mins =
+        new AugmentedSkipList<Integer, Integer>(Monoids.<Integer> min());
+    ArrayList<Integer> expected = new ArrayList<Integer>();
+    Random random = new Random();
+    for (int round = 0; round < 3000; round++)
+      {
+        Integer val = random.nextInt(400);
+        switch (random.nextInt(4))
+          {
+            case 0:
+              sums.remove(val);
+              mins.remove(val);
+              while (expected.remove(val))
+                ;
+              break;
+            case 1:
+              if (!expected.isEmpty())
+                {
+                  // Remove the copy at a random index through iterators
+                  int index = random.nextInt(expected.size());
+                  Iterator<Integer> sit = sums.iterator();
+                  Iterator<Integer> mit = mins.iterator();
+                  for (int i = 0; i <= index; i++)
+                    {
+                      sit.next();
+                      mit.next();
+                    } // for
+                  sit.remove();
+                  mit.remove();
+                  expected.remove(index);
+                } // if
+              break;
+            default:
+              sums.add(val);
+              mins.add(val);
+              expected.add(val);
+              Collections.sort(expected);
+          } // switch
+        assertEquals(expected.size(), sums.length());
+
+        int lo = random.nextInt(420) - 10;
+        int hi = lo + random.nextInt(200);
+        long sum = 0;
+        Integer min = null;
+        int rank = 0;
+        for (Integer v : expected)
+          {
+            if (v < lo)
+              rank++;
+            else if (v < hi)
+              {
+                sum += v;
+                if (min == null)
+                  min = v;
+              } // else if
+          } // for
+        assertEquals(Long.valueOf(sum), sums.aggregate(lo, hi));
+        assertEquals(min, mins.aggregate(lo, hi));
+        assertEquals(rank, sums.rank(lo));
+        if (!expected.isEmpty())
+          {
+            int i = random.nextInt(expected.size());
+            assertEquals(expected.get(i), sums.get(i));
+            assertEquals(expected.get(0), mins.aggregate());
+          } // if
+      } // for
+  } // testAggregate()
+} // AugmentedSkipListTest
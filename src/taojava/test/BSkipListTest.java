@@ -0,0 +1,19 @@
+package taojava.test;
+
+import org.junit.Before;
+
+import taojava.util.BSkipList;
+
+/**
+ * Tests of B-skiplists.
+ */
+public class BSkipListTest
+extends SortedListTest
+{
+  @Before
+  public void setup()
+  {
+    this.ints = new BSkipList<Integer>();
+    this.strings = new BSkipList<String>();
+  } // setup
+} // BSkipListTest
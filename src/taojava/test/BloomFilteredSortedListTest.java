@@ -0,0 +1,56 @@
+package taojava.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import taojava.util.BloomFilteredSortedList;
+import taojava.util.SkipList;
+
+/**
+ * Tests of Bloom-filtered sorted lists.  We filter skip lists, and use
+ * a small first stage so that the filter has to grow.
+ */
+public class BloomFilteredSortedListTest
+extends SortedListTest
+{
+  @Before
+  public void setup()
+  {
+    this.ints =
+        new BloomFilteredSortedList<Integer>(new SkipList<Integer>(),
+                                             16, 0.01, 0.25);
+    this.strings =
+        new BloomFilteredSortedList<String>(new SkipList<String>(),
+                                            16, 0.01, 0.25);
+  } // setup
+
+  /**
+   * Verify that the filter rejects most misses, and never rejects a
+   * value in the list, even after removals and rebuilds.
+   */
+  @Test
+  public void testRejects()
+  {
+    BloomFilteredSortedList<Integer> list =
+        new BloomFilteredSortedList<Integer>(new SkipList<Integer>(),
+                                             64, 0.01, 0.25);
+    for (int i = 0; i < 10000; i += 2)
+      list.add(i);
+    for (int i = 0; i < 10000; i += 6)
+      list.remove(i);
+    assertTrue(list.rebuilds() > 0);
+    for (int i = 0; i < 10000; i++)
+      assertEquals(Integer.toString(i), (i % 2 == 0) && (i % 6 != 0),
+                   list.contains(i));
+    // Removed values may pass the filter until the next rebuild, so
+    // we measure the rate with values that were never added.
+    list.resetStats();
+    for (int i = 1; i < 20000; i += 2)
+      assertFalse(list.contains(i));
+    assertEquals(10000, list.probes());
+    assertTrue("false-positive rate " + list.falsePositiveRate(),
+               list.falsePositiveRate() < 0.05);
+  } // testRejects()
+} // BloomFilteredSortedListTest
@@ -0,0 +1,128 @@
+package taojava.test;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.Test;
+
+import taojava.util.ConcurrentSkipListPriorityQueue;
+
+/**
+ * Tests of concurrent skip-list priority queues.
+ */
+public class ConcurrentSkipListPriorityQueueTest
+{
+  /**
+   * The number of threads in the concurrent tests.
+   */
+  static final int THREADS = 8;
+
+  /**
+   * The number of values each thread adds.
+   */
+  static final int PER_THREAD = 20000;
+
+  /**
+   * Have THREADS threads add and poll from pq at once, then drain it,
+   * and check that every value came out exactly once.
+   */
+  void stress(final ConcurrentSkipListPriorityQueue<Integer> pq)
+    throws Exception
+  {
+    final AtomicIntegerArray seen =
+        new AtomicIntegerArray(THREADS * PER_THREAD);
+    Thread[] threads = new Thread[THREADS];
+    for (int t = 0; t < THREADS; t++)
+      {
+        final int base = t * PER_THREAD;
+        threads[t] = new Thread()
+          {
+            public void run()
+            {
+              for (int i = 0; i < PER_THREAD; i++)
+                {
+                  pq.add(base + i);
+                  if (i % 2 == 1)
+                    {
+                      Integer val = pq.poll();
+                      if (val != null)
+                        seen.incrementAndGet(val);
+                    } // if
+                } // for
+            } // run()
+          }; // new Thread
+        threads[t].start();
+      } // for
+    for (Thread thread : threads)
+      thread.join();
+    assertEquals(THREADS * PER_THREAD / 2, pq.size());
+    Integer val;
+    while ((val = pq.poll()) != null)
+      seen.incrementAndGet(val);
+    assertTrue(pq.isEmpty());
+    for (int i = 0; i < seen.length(); i++)
+      assertEquals(Integer.toString(i), 1, seen.get(i));
+  } // stress(ConcurrentSkipListPriorityQueue<Integer>)
+
+  /**
+   * With one thread, polls come out in order, duplicates included.
+   */
+  @Test
+  public void testOrder()
+  {
+    ConcurrentSkipListPriorityQueue<Integer> pq =
+        new ConcurrentSkipListPriorityQueue<Integer>();
+    assertNull(pq.poll());
+    assertNull(pq.peek());
+    Random random = new Random(1);
+    int[] counts = new int[100];
+    for (int i = 0; i < 5000; i++)
+      {
+        int val = random.nextInt(100);
+        counts[val]++;
+        pq.add(val);
+      } // for
+    assertEquals(5000, pq.size());
+    for (int val = 0; val < 100; val++)
+      for (int i = 0; i < counts[val]; i++)
+        {
+          assertEquals(Integer.valueOf(val), pq.peek());
+          assertEquals(Integer.valueOf(val), pq.poll());
+        } // for
+    assertNull(pq.poll());
+    assertTrue(pq.isEmpty());
+  } // testOrder()
+
+  /**
+   * Exact polls from many threads lose and repeat nothing.
+   */
+  @Test
+  public void testConcurrent()
+    throws Exception
+  {
+    stress(new ConcurrentSkipListPriorityQueue<Integer>());
+  } // testConcurrent()
+
+  /**
+   * Relaxed polls return values near the front, and, from many
+   * threads, lose and repeat nothing.
+   */
+  @Test
+  public void testRelaxed()
+    throws Exception
+  {
+    ConcurrentSkipListPriorityQueue<Integer> pq =
+        new ConcurrentSkipListPriorityQueue<Integer>(THREADS);
+    for (int i = 0; i < 10000; i++)
+      pq.add(i);
+    int worst = 0;
+    for (int i = 0; i < 1000; i++)
+      worst = Math.max(worst, pq.poll() - i);
+    assertTrue("rank error " + worst, worst < 1000);
+    while (pq.poll() != null)
+      ;
+    stress(pq);
+  } // testRelaxed()
+} // ConcurrentSkipListPriorityQueueTest
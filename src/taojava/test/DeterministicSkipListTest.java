@@ -0,0 +1,19 @@
+package taojava.test;
+
+import org.junit.Before;
+
+import taojava.util.DeterministicSkipList;
+
+/**
+ * Tests of deterministic skip lists.
+ */
+public class DeterministicSkipListTest
+extends SortedListTest
+{
+  @Before
+  public void setup()
+  {
+    this.ints = new DeterministicSkipList<Integer>();
+    this.strings = new DeterministicSkipList<String>();
+  } // setup
+} // DeterministicSkipListTest
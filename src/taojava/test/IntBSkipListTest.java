@@ -0,0 +1,89 @@
+package taojava.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import taojava.util.IntBSkipList;
+import taojava.util.SortedArrayList;
+
+/**
+ * Tests of B-skiplists of ints.  Since those lists only hold ints, we
+ * use a SortedArrayList for the string tests.
+ */
+public class IntBSkipListTest
+extends SortedListTest
+{
+  @Before
+  public void setup()
+  {
+    this.ints = new IntBSkipList();
+    this.strings = new SortedArrayList<String>();
+  } // setup
+
+  /**
+   * Verify that intAt, rank, and contains agree with a plain list
+   * through adds, removes of one copy and of every copy, and removes
+   * by iterators.  The values are few, so their copies span blocks.
+   */
+  @Test
+  public void testCopies()
+  {
+    IntBSkipList list = new IntBSkipList();
+    ArrayList<Integer> expected = new ArrayList<Integer>();
+    for (int round = 0; round < 20000; round++)
+      {
+        int val = random.nextInt(30);
+        switch (random.nextInt(10))
+          {
+            case 0:
+            case 1:
+              assertEquals(expected.remove((Integer) val),
+                           list.removeOne(val));
+              break;
+            case 2:
+              if (random.nextInt(10) == 0)
+                {
+                  list.remove(val);
+                  expected.removeAll(Collections.singleton(val));
+                } // if
+              break;
+            case 3:
+              if (random.nextInt(10) == 0)
+                {
+                  Iterator<Integer> it = list.iterator();
+                  while (it.hasNext())
+                    if ((it.next() == val) && random.nextBoolean())
+                      it.remove();
+                  expected.clear();
+                  for (Integer lav : list)
+                    expected.add(lav);
+                } // if
+              break;
+            default:
+              list.add(val);
+              expected.add(val);
+              Collections.sort(expected);
+          } // switch
+        assertEquals(expected.size(), list.length());
+        assertEquals(expected.contains(val), list.contains(val));
+        int rank = 0;
+        while ((rank < expected.size()) && (expected.get(rank) < val))
+          rank++;
+        assertEquals(rank, list.rank(val));
+        if (!expected.isEmpty())
+          {
+            int i = random.nextInt(expected.size());
+            assertEquals((int) expected.get(i), list.intAt(i));
+          } // if
+      } // for
+    int i = 0;
+    for (Integer val : list)
+      assertEquals(expected.get(i++), val);
+  } // testCopies()
+} // IntBSkipListTest
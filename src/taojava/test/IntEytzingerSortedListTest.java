@@ -0,0 +1,73 @@
+package taojava.test;
+
+import static org.junit.Assert.*;
+
+import java.util.Iterator;
+import java.util.Random;
+
+import org.junit.Test;
+
+import taojava.util.IntEytzingerSortedList;
+import taojava.util.SortedArrayList;
+
+/**
+ * Tests of read-only Eytzinger-order sorted lists of ints.  Since
+ * those lists cannot be modified, we build a SortedArrayList and
+ * compare the frozen copy against it.
+ */
+public class IntEytzingerSortedListTest
+{
+  /**
+   * A random number generator for the randomized tests.
+   */
+  Random random = new Random();
+
+  /**
+   * Verify that a frozen list has the same elements, in the same
+   * order, as the original, for a variety of sizes.
+   */
+  @Test
+  public void testFreeze()
+  {
+    for (int n = 0; n < 300; n += 7)
+      {
+        SortedArrayList<Integer> original = new SortedArrayList<Integer>();
+        for (int i = 0; i < n; i++)
+          original.add(2 * random.nextInt(2 * n));
+        IntEytzingerSortedList frozen = IntEytzingerSortedList.freeze(original);
+        assertEquals(original.length(), frozen.length());
+        Iterator<Integer> it = frozen.iterator();
+        for (int i = 0; i < original.length(); i++)
+          {
+            assertEquals(original.get(i), frozen.get(i));
+            assertEquals(original.get(i), it.next());
+          } // for (i)
+        assertFalse(it.hasNext());
+        for (int val = -1; val <= 4 * n + 1; val++)
+          assertEquals("contains(" + val + ")", original.contains(val),
+                       frozen.contains(val));
+      } // for (n)
+  } // testFreeze()
+
+  /**
+   * Verify that a frozen list cannot be modified.
+   */
+  @Test
+  public void testReadOnly()
+  {
+    SortedArrayList<Integer> original = new SortedArrayList<Integer>();
+    original.add(42);
+    IntEytzingerSortedList frozen = IntEytzingerSortedList.freeze(original);
+    try
+      {
+        frozen.add(17);
+        fail("Should not be able to add to a frozen list");
+      } // try
+    catch (UnsupportedOperationException e)
+      {
+        // Do nothing - success
+      } // catch
+    assertTrue(frozen.contains(42));
+    assertFalse(frozen.contains(17));
+  } // testReadOnly()
+} // class IntEytzingerSortedListTest
@@ -0,0 +1,47 @@
+package taojava.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import taojava.util.IntSortedArrayList;
+import taojava.util.SortedArrayList;
+
+/**
+ * Tests of sorted lists of ints.  Since those lists only hold ints,
+ * we use a SortedArrayList for the string tests.
+ */
+public class IntSortedArrayListTest
+extends SortedListTest
+{
+  @Before
+  public void setup()
+  {
+    this.ints = new IntSortedArrayList();
+    this.strings = new SortedArrayList<String>();
+  } // setup
+
+  /**
+   * Verify that bulk probes agree with individual probes.
+   */
+  @Test
+  public void testContainsAll()
+  {
+    IntSortedArrayList list = new IntSortedArrayList();
+    for (int i = 0; i < 1000; i++)
+      list.add(3 * random.nextInt(1000));
+    int[] probes = new int[50];
+    boolean expected = true;
+    for (int i = 0; i < probes.length; i++)
+      {
+        probes[i] = random.nextInt(3000);
+        expected = expected && list.contains(probes[i]);
+      } // for
+    assertEquals(expected, list.containsAll(probes));
+    int[] present = new int[list.length()];
+    for (int i = 0; i < present.length; i++)
+      present[i] = list.intAt(present.length - 1 - i);
+    assertTrue(list.containsAll(present));
+  } // testContainsAll()
+} // IntSortedArrayListTest
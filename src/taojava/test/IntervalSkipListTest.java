@@ -0,0 +1,65 @@
+package taojava.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+
+import org.junit.Test;
+
+import taojava.util.IntervalSkipList;
+import taojava.util.IntervalSkipList.Interval;
+
+/**
+ * Tests of interval skip lists.
+ */
+public class IntervalSkipListTest
+{
+  /**
+   * Verify that stab and overlapping find exactly the right intervals,
+   * each once, as intervals come and go.
+   */
+  @Test
+  public void testQueries()
+  {
+    IntervalSkipList<Integer> list = new IntervalSkipList<Integer>();
+    ArrayList<Interval<Integer>> intervals =
+        new ArrayList<Interval<Integer>>();
+    Random random = new Random();
+    for (int round = 0; round < 3000; round++)
+      {
+        if (!intervals.isEmpty() && (random.nextInt(3) == 0))
+          list.remove(intervals.remove(random.nextInt(intervals.size())));
+        else
+          {
+            int lo = random.nextInt(500);
+            intervals.add(list.add(lo, lo + random.nextInt(60)));
+          } // else
+        assertEquals(intervals.size(), list.size());
+
+        int point = random.nextInt(600) - 20;
+        HashSet<Interval<Integer>> expected =
+            new HashSet<Interval<Integer>>();
+        for (Interval<Integer> interval : intervals)
+          if ((interval.lo <= point) && (point <= interval.hi))
+            expected.add(interval);
+        ArrayList<Interval<Integer>> found =
+            new ArrayList<Interval<Integer>>(list.stab(point));
+        assertEquals(expected.size(), found.size());
+        assertEquals(expected, new HashSet<Interval<Integer>>(found));
+
+        int hi = point + random.nextInt(30);
+        expected.clear();
+        for (Interval<Integer> interval : intervals)
+          if ((interval.lo <= hi) && (point <= interval.hi))
+            expected.add(interval);
+        found = new ArrayList<Interval<Integer>>(list.overlapping(point, hi));
+        assertEquals(expected.size(), found.size());
+        assertEquals(expected, new HashSet<Interval<Integer>>(found));
+      } // for
+    while (!intervals.isEmpty())
+      list.remove(intervals.remove(0));
+    assertTrue(list.stab(250).isEmpty());
+  } // testQueries()
+} // IntervalSkipListTest
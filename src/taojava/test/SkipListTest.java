@@ -1,7 +1,16 @@
 package taojava.test;
 
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Random;
+
 import org.junit.Before;
+import org.junit.Test;
 
+import taojava.analysis.CountedInteger;
 import taojava.util.SkipList;
 
 /**
@@ -18,4 +27,353 @@ extends SortedListTest
     this.ints = new SkipList<Integer>();
     this.strings = new SkipList<String>();
   } // setup
+
+  /**
+   * Verify that contains makes a logarithmic number of comparisons,
+   * on average.
+   */
+  @Test
+  public void testContainsComparisons()
+  {
+    CountedInteger.Counter counter = new CountedInteger.Counter();
+    SkipList<CountedInteger> counted = new SkipList<CountedInteger>();
+    Random random = new Random();
+    int n = 4096;
+    for (int i = 0; i < n; i++)
+      counted.add(counter.wrap(random.nextInt(4 * n)));
+    counter.reset();
+    int ops = 1000;
+    for (int i = 0; i < ops; i++)
+      counted.contains(counter.wrap(random.nextInt(4 * n)));
+    double log2n = Math.log(n) / Math.log(2);
+    double average = (double) counter.comparisons() / ops;
+    assertTrue("contains made " + average + " comparisons on average",
+               average <= 4 * log2n);
+  } // testContainsComparisons()
+
+  /**
+   * Verify that the lookup cache answers repeated lookups, and that
+   * its answers follow adds and removes.
+   */
+  @Test
+  public void testLookupCache()
+  {
+    SkipList<Integer> list = new SkipList<Integer>();
+    list.enableLookupCache(8);
+    for (int i = 0; i < 100; i += 2)
+      list.add(i);
+    for (int round = 0; round < 10; round++)
+      for (int i = 0; i < 4; i++)
+        assertEquals(i % 2 == 0, list.contains(i));
+    assertEquals(4, list.cacheMisses());
+    assertEquals(36, list.cacheHits());
+    list.add(1);
+    assertTrue(list.contains(1));
+    list.remove(2);
+    assertFalse(list.contains(2));
+    // Removing one copy with the iterator leaves the other
+    list.add(0);
+    assertTrue(list.contains(0));
+    Iterator<Integer> it = list.iterator();
+    it.next();
+    it.remove();
+    assertTrue(list.contains(0));
+    it.next();
+    it.remove();
+    assertFalse(list.contains(0));
+    // Many distinct values push out old ones, without wrong answers
+    for (int i = 0; i < 1000; i++)
+      assertEquals((i % 2 == 0) && (i < 100) && (i > 2) || (i == 1),
+                   list.contains(i));
+  } // testLookupCache()
+
+  /**
+   * Verify that a self-adjusting list finds popular values with fewer
+   * comparisons, and that adjusting leaves the contents alone.
+   */
+  @Test
+  public void testSelfAdjusting()
+  {
+    CountedInteger.Counter counter = new CountedInteger.Counter();
+    SkipList<CountedInteger> counted = new SkipList<CountedInteger>();
+    int n = 4096;
+    for (int i = 0; i < n; i++)
+      counted.add(counter.wrap(2 * i));
+    CountedInteger[] hot = new CountedInteger[8];
+    for (int i = 0; i < hot.length; i++)
+      hot[i] = counter.wrap(2 * (i * 509 % n));
+
+    counter.reset();
+    for (CountedInteger val : hot)
+      assertTrue(counted.contains(val));
+    long before = counter.comparisons();
+
+    counted.setSelfAdjusting(true);
+    Random random = new Random();
+    for (int i = 0; i < 20000; i++)
+      {
+        assertTrue(counted.contains(hot[random.nextInt(hot.length)]));
+        assertFalse(counted.contains(counter.wrap(2 * random.nextInt(n) + 1)));
+      } // for
+    counter.reset();
+    for (CountedInteger val : hot)
+      assertTrue(counted.contains(val));
+    long after = counter.comparisons();
+    assertTrue("hot lookups took " + after + " comparisons, down from "
+               + before, after < before);
+
+    assertEquals(n, counted.length());
+    int expected = 0;
+    for (CountedInteger val : counted)
+      {
+        assertEquals(expected, val.intValue());
+        expected += 2;
+      } // for
+  } // testSelfAdjusting()
+
+  /**
+   * Verify that the priority-queue methods take values from the right
+   * ends, copies included, and keep the list consistent with them.
+   */
+  @Test
+  public void testPriorityQueue()
+  {
+    SkipList<Integer> list = new SkipList<Integer>();
+    assertNull(list.peekFirst());
+    assertNull(list.pollFirst());
+    assertNull(list.peekLast());
+    assertNull(list.pollLast());
+
+    ArrayList<Integer> expected = new ArrayList<Integer>();
+    Random random = new Random();
+    for (int i = 0; i < 2000; i++)
+      {
+        Integer val = random.nextInt(500);
+        list.add(val);
+        expected.add(val);
+      } // for
+    Collections.sort(expected);
+    while (!expected.isEmpty())
+      {
+        assertEquals(expected.get(0), list.peekFirst());
+        assertEquals(expected.get(expected.size() - 1), list.peekLast());
+        switch (random.nextInt(4))
+          {
+            case 0:
+              assertEquals(expected.remove(0), list.pollFirst());
+              break;
+            case 1:
+              assertEquals(expected.remove(expected.size() - 1),
+                           list.pollLast());
+              break;
+            case 2:
+              // Removing by value must keep the ends right as well
+              Integer val = expected.get(random.nextInt(expected.size()));
+              list.remove(val);
+              while (expected.remove(val))
+                ;
+              break;
+            default:
+              Integer added = random.nextInt(500);
+              list.add(added);
+              int index = Collections.binarySearch(expected, added);
+              expected.add((index < 0) ? -index - 1 : index, added);
+          } // switch
+        assertEquals(expected.size(), list.length());
+      } // while
+    assertNull(list.pollLast());
+  } // testPriorityQueue()
+
+  /**
+   * Verify that bounded lists keep the largest (or smallest) capacity
+   * values, and report what they evict.
+   */
+  @Test
+  public void testBounded()
+  {
+    for (SkipList.Eviction eviction : SkipList.Eviction.values())
+      {
+        boolean top = (eviction == SkipList.Eviction.SMALLEST);
+        SkipList<Integer> list = new SkipList<Integer>(100, eviction);
+        ArrayList<Integer> expected = new ArrayList<Integer>();
+        Random random = new Random();
+        for (int i = 0; i < 5000; i++)
+          {
+            Integer val = random.nextInt(1000);
+            Integer out = null;
+            expected.add(val);
+            Collections.sort(expected);
+            if (expected.size() > 100)
+              out = top ? expected.remove(0)
+                        : expected.remove(expected.size() - 1);
+            if (i % 2 == 0)
+              list.add(val);
+            else
+              assertEquals(out, list.offer(val));
+            assertEquals(expected.size(), list.length());
+          } // for
+        Iterator<Integer> it = list.iterator();
+        for (Integer val : expected)
+          assertEquals(val, it.next());
+        assertFalse(it.hasNext());
+      } // for
+  } // testBounded()
+
+  /**
+   * Verify that removeRange, removeHead, and removeTail remove exactly
+   * the values in range, copies included, and keep the ends right.
+   */
+  @Test
+  public void testRemoveRange()
+  {
+    Random random = new Random();
+    for (int round = 0; round < 50; round++)
+      {
+        SkipList<Integer> list = new SkipList<Integer>();
+        ArrayList<Integer> expected = new ArrayList<Integer>();
+        for (int i = 0; i < 500; i++)
+          {
+            Integer val = random.nextInt(300);
+            list.add(val);
+            expected.add(val);
+          } // for
+        Collections.sort(expected);
+        int lo = random.nextInt(320) - 10;
+        int hi = lo + random.nextInt(100);
+        int before = expected.size();
+        int removed;
+        switch (round % 3)
+          {
+            case 0:
+              removed = list.removeRange(lo, hi);
+              break;
+            case 1:
+              removed = list.removeHead(hi);
+              lo = Integer.MIN_VALUE;
+              break;
+            default:
+              removed = list.removeTail(lo);
+              hi = Integer.MAX_VALUE;
+          } // switch
+        Iterator<Integer> it = expected.iterator();
+        while (it.hasNext())
+          {
+            int val = it.next();
+            if ((lo <= val) && (val < hi))
+              it.remove();
+          } // while
+        assertEquals(before - expected.size(), removed);
+        assertEquals(expected.size(), list.length());
+        Iterator<Integer> lit = list.iterator();
+        for (Integer val : expected)
+          assertEquals(val, lit.next());
+        assertFalse(lit.hasNext());
+        if (!expected.isEmpty())
+          assertEquals(expected.get(expected.size() - 1), list.peekLast());
+        for (int i = 0; i < 300; i++)
+          assertEquals(expected.contains(i), list.contains(i));
+      } // for
+  } // testRemoveRange()
+
+  /**
+   * Verify that lists with tombstones hold the same values as lists
+   * without, through removes, polls, and range removals, and that
+   * compaction unlinks every tombstone.
+   */
+  @Test
+  public void testTombstones()
+  {
+    SkipList<Integer> list = new SkipList<Integer>();
+    list.enableTombstones(0.5);
+    ArrayList<Integer> expected = new ArrayList<Integer>();
+    Random random = new Random();
+    for (int i = 0; i < 20000; i++)
+      {
+        Integer val = random.nextInt(500);
+        switch (random.nextInt(8))
+          {
+            case 0:
+            case 1:
+            case 2:
+              list.add(val);
+              expected.add(val);
+              Collections.sort(expected);
+              break;
+            case 3:
+            case 4:
+              list.remove(val);
+              expected.removeAll(Collections.singleton(val));
+              break;
+            case 5:
+              assertEquals(expected.isEmpty() ? null : expected.remove(0),
+                           list.pollFirst());
+              break;
+            case 6:
+              assertEquals(expected.isEmpty() ? null
+                                              : expected.remove(expected.size() - 1),
+                           list.pollLast());
+              break;
+            default:
+              Iterator<Integer> it = list.iterator();
+              while (it.hasNext())
+                if (it.next().equals(val))
+                  it.remove();
+              expected.removeAll(Collections.singleton(val));
+          } // switch
+        assertEquals(expected.size(), list.length());
+        assertEquals(expected.contains(val), list.contains(val));
+        if (!expected.isEmpty())
+          {
+            assertEquals(expected.get(0), list.peekFirst());
+            assertEquals(expected.get(expected.size() - 1), list.peekLast());
+          } // if
+      } // for
+    Integer hi = expected.get(expected.size() / 2);
+    int below = expected.indexOf(hi);
+    assertEquals(below, list.removeRange(Integer.MIN_VALUE, hi));
+    assertEquals(expected.size() - below, list.length());
+    list.disableTombstones();
+    assertEquals(0, list.tombstones());
+    Iterator<Integer> it = list.iterator();
+    for (Integer val : expected.subList(below, expected.size()))
+      assertEquals(val, it.next());
+    assertFalse(it.hasNext());
+  } // testTombstones()
+
+  /**
+   * Verify that compaction unlinks only a few tombstones per call, so
+   * that no remove pays for a pass over the list, and that it still
+   * keeps tombstones below the ratio.
+   */
+  @Test
+  public void testIncrementalCompaction()
+  {
+    SkipList<Integer> list = new SkipList<Integer>();
+    list.enableTombstones(0.25);
+    for (int i = 0; i < 10000; i++)
+      list.add(i);
+    for (int i = 0; i < 10000; i += 2)
+      {
+        int before = list.tombstones();
+        list.remove(i);
+        assertTrue(list.tombstones() >= before + 1 - SkipList.COMPACTION_STEP);
+        assertTrue(list.tombstones() <= 0.25 * (list.length() + list.tombstones()));
+      } // for
+    Iterator<Integer> it = list.iterator();
+    for (int i = 1; i < 10000; i += 2)
+      {
+        assertEquals((Integer) i, it.next());
+        if (i % 4 == 1)
+          {
+            int before = list.tombstones();
+            it.remove();
+            assertTrue(list.tombstones() >= before + 1 - SkipList.COMPACTION_STEP);
+            assertTrue(list.tombstones() <= 0.25 * (list.length() + list.tombstones()));
+          } // if
+      } // for
+    assertFalse(it.hasNext());
+    assertEquals(2500, list.length());
+    for (int i = 0; i < 10000; i++)
+      assertEquals(i % 4 == 3, list.contains(i));
+  } // testIncrementalCompaction()
 } // SkipListTest
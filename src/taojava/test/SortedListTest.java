@@ -350,6 +350,30 @@ public class SortedListTest
 
   } // testIteratorRemove()
 
+  /**
+   * Test that remove still removes the value next returned when
+   * hasNext is called in between, including where the values
+   * returned cross from one block of storage to the next.
+   */
+  @Test
+  public void testIteratorRemoveAfterHasNext()
+  {
+    for (int i = 0; i < 500; i++)
+      ints.add(i);
+    Iterator<Integer> iterator = ints.iterator();
+    while (iterator.hasNext())
+      {
+        int val = iterator.next();
+        if (val % 3 == 0)
+          {
+            iterator.hasNext();
+            iterator.remove();
+          } // if
+      } // while
+    for (int i = 0; i < 500; i++)
+      assertEquals("contains(" + i + ")", i % 3 != 0, ints.contains(i));
+  } // testIteratorRemoveAfterHasNext()
+
   /**
    * Test that multiple iterators register when other iterators
    * edit the sorted list
@@ -0,0 +1,19 @@
+package taojava.test;
+
+import org.junit.Before;
+
+import taojava.util.TieredSortedList;
+
+/**
+ * Tests of tiered sorted lists.
+ */
+public class TieredSortedListTest
+extends SortedListTest
+{
+  @Before
+  public void setup()
+  {
+    this.ints = new TieredSortedList<Integer>();
+    this.strings = new TieredSortedList<String>();
+  } // setup
+} // TieredSortedListTest
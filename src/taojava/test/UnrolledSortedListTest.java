@@ -0,0 +1,19 @@
+package taojava.test;
+
+import org.junit.Before;
+
+import taojava.util.UnrolledSortedList;
+
+/**
+ * Tests of unrolled sorted lists.
+ */
+public class UnrolledSortedListTest
+extends SortedListTest
+{
+  @Before
+  public void setup()
+  {
+    this.ints = new UnrolledSortedList<Integer>();
+    this.strings = new UnrolledSortedList<String>();
+  } // setup
+} // UnrolledSortedListTest
@@ -0,0 +1,133 @@
+package taojava.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.Test;
+
+import taojava.util.IntWindowedOrderStatistics;
+import taojava.util.WindowedOrderStatistics;
+
+/**
+ * Tests of sliding-window order statistics.
+ */
+public class WindowedOrderStatisticsTest
+{
+  /**
+   * Compare the statistics of a window with those of a sorted copy.
+   */
+  void check(ArrayList<Integer> window, WindowedOrderStatistics<Integer> stats,
+             Random random)
+  {
+    ArrayList<Integer> sorted = new ArrayList<Integer>(window);
+    Collections.sort(sorted);
+    int n = sorted.size();
+    assertEquals(n, stats.size());
+    if (n == 0)
+      {
+        assertNull(stats.median());
+        return;
+      } // if
+    assertEquals(sorted.get((n - 1) / 2), stats.median());
+    assertEquals(sorted.get((int) Math.ceil(0.99 * n) - 1),
+                 stats.quantile(0.99));
+    assertEquals(sorted.get(0), stats.quantile(0));
+    assertEquals(sorted.get(n - 1), stats.quantile(1));
+    Integer val = random.nextInt(100);
+    int rank = 0;
+    while ((rank < n) && (sorted.get(rank) < val))
+      rank++;
+    assertEquals(rank, stats.rank(val));
+  } // check(ArrayList<Integer>, WindowedOrderStatistics<Integer>, Random)
+
+  /**
+   * Windows of a fixed number of values.
+   */
+  @Test
+  public void testCountWindow()
+  {
+    WindowedOrderStatistics<Integer> stats =
+        new WindowedOrderStatistics<Integer>(50);
+    ArrayList<Integer> window = new ArrayList<Integer>();
+    Random random = new Random();
+    check(window, stats, random);
+    for (int i = 0; i < 2000; i++)
+      {
+        Integer val = random.nextInt(100);
+        stats.add(val);
+        window.add(val);
+        if (window.size() > 50)
+          window.remove(0);
+        check(window, stats, random);
+      } // for
+  } // testCountWindow()
+
+  /**
+   * Windows of a span of time.
+   */
+  @Test
+  public void testTimeWindow()
+  {
+    WindowedOrderStatistics<Integer> stats =
+        new WindowedOrderStatistics<Integer>(0);
+    ArrayList<Integer> window = new ArrayList<Integer>();
+    ArrayList<Long> times = new ArrayList<Long>();
+    Random random = new Random();
+    long time = 0;
+    for (int i = 0; i < 2000; i++)
+      {
+        time += random.nextInt(3);
+        Integer val = random.nextInt(100);
+        stats.add(time, val);
+        window.add(val);
+        times.add(time);
+        int evicted = 0;
+        while (times.get(0) < time - 100)
+          {
+            times.remove(0);
+            window.remove(0);
+            evicted++;
+          } // while
+        assertEquals(evicted, stats.evictBefore(time - 100));
+        check(window, stats, random);
+      } // for
+  } // testTimeWindow()
+
+  /**
+   * Windows of ints, of a fixed number of values and of a span of
+   * time, against windows of Integers.
+   */
+  @Test
+  public void testIntWindow()
+  {
+    Random random = new Random();
+    for (int capacity : new int[] { 0, 1, 700 })
+      {
+        WindowedOrderStatistics<Integer> expected =
+            new WindowedOrderStatistics<Integer>(capacity);
+        IntWindowedOrderStatistics stats =
+            new IntWindowedOrderStatistics(capacity);
+        long time = 0;
+        for (int i = 0; i < 5000; i++)
+          {
+            time += random.nextInt(3);
+            int val = random.nextInt(1000);
+            expected.add(time, val);
+            stats.add(time, val);
+            if (capacity == 0)
+              assertEquals(expected.evictBefore(time - 1000),
+                           stats.evictBefore(time - 1000));
+            assertEquals(expected.size(), stats.size());
+            assertEquals((int) expected.median(), stats.median());
+            assertEquals((int) expected.quantile(0.99), stats.quantile(0.99));
+            assertEquals((int) expected.quantile(0), stats.quantile(0));
+            assertEquals((int) expected.quantile(1), stats.quantile(1));
+            val = random.nextInt(1000);
+            assertEquals(expected.rank(val), stats.rank(val));
+          } // for
+      } // for
+  } // testIntWindow()
+} // WindowedOrderStatisticsTest
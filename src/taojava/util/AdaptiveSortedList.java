@@ -0,0 +1,370 @@
+package taojava.util;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+
+/**
+ * Sorted lists that pick their own representation.  A list starts as
+ * a SortedArrayList, which is compact and fast to search and index.
+ * Once it is long enough, and enough of the recent operations are
+ * writes, it moves its values into a SkipList, where adding and
+ * removing are cheaper.  If it later becomes short again, or the
+ * writes die down, it moves back.  Each move takes linear time.
+ *
+ * A skip list can only find the value at an index by walking to it,
+ * which costs about as much as a write to an array.  So get walks the
+ * skip list rather than moving at once, and a window in which calls
+ * to get outnumber writes keeps (or puts) the values in an array.
+ *
+ * We count operations in windows of a fixed size, and consider moving
+ * at the end of each window.  A move does not invalidate iterators:
+ * they continue through the old representation, which holds the same
+ * values, and pass any removals on to the new one.
+ *
+ * Like SortedArrayList, an adaptive list holds at most one copy of
+ * each value.
+ */
+public class AdaptiveSortedList<T extends Comparable<T>>
+    implements SortedList<T>
+{
+  // +-----------+-------------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The default length at which we consider moving to a skip list.
+   */
+  public static final int GROW_LENGTH = 4096;
+
+  /**
+   * The default length below which we move back to an array.
+   */
+  public static final int SHRINK_LENGTH = 1024;
+
+  /**
+   * The default fraction of writes at which we consider moving to a
+   * skip list.  We move back when the fraction falls below half of
+   * this.
+   */
+  public static final double WRITE_FRACTION = 0.25;
+
+  /**
+   * The default number of operations in a window.
+   */
+  public static final int WINDOW = 1024;
+
+  // +--------+----------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The values, when we are using an array.
+   */
+  SortedArrayList<T> array;
+
+  /**
+   * The values, when we are using a skip list.  Exactly one of array
+   * and skip is non-null.
+   */
+  SkipList<T> skip;
+
+  /**
+   * The length at which we consider moving to a skip list.
+   */
+  int growLength;
+
+  /**
+   * The length below which we move back to an array.
+   */
+  int shrinkLength;
+
+  /**
+   * The fraction of writes at which we consider moving to a skip list.
+   */
+  double writeFraction;
+
+  /**
+   * The number of operations in a window.
+   */
+  int window;
+
+  /**
+   * The number of reads and writes in the current window.
+   */
+  int reads;
+  int writes;
+
+  /**
+   * The number of those reads that were calls to get.
+   */
+  int gets;
+
+  /**
+   * The number of modifications to the list.  Used to determine
+   * whether an iterator is valid.
+   */
+  long mods;
+
+  // +--------------+----------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new, empty, list with the default thresholds.
+   */
+  public AdaptiveSortedList()
+  {
+    this(GROW_LENGTH, SHRINK_LENGTH, WRITE_FRACTION, WINDOW);
+  } // AdaptiveSortedList()
+
+  /**
+   * Create a new, empty, list that moves to a skip list once it has
+   * at least growLength values and at least writeFraction of the
+   * operations in a window are writes, and moves back once it has
+   * fewer than shrinkLength values or fewer than writeFraction/2 of
+   * the operations are writes.
+   */
+  public AdaptiveSortedList(int growLength, int shrinkLength,
+                            double writeFraction, int window)
+  {
+    if (shrinkLength > growLength)
+      throw new IllegalArgumentException("shrinkLength (" + shrinkLength
+                                         + ") exceeds growLength ("
+                                         + growLength + ")");
+    this.array = new SortedArrayList<T>();
+    this.skip = null;
+    this.growLength = growLength;
+    this.shrinkLength = shrinkLength;
+    this.writeFraction = writeFraction;
+    this.window = window;
+    this.reads = 0;
+    this.writes = 0;
+    this.gets = 0;
+    this.mods = 0;
+  } // AdaptiveSortedList(int, int, double, int)
+
+  // +-------------------------+-----------------------------------------
+  // | Internal Helper Methods |
+  // +-------------------------+
+
+  /**
+   * Get the current representation.
+   */
+  SortedList<T> rep()
+  {
+    return (this.array != null) ? this.array : this.skip;
+  } // rep()
+
+  /**
+   * Note the end of an operation and, at the end of a window, decide
+   * whether to change representation.
+   */
+  void tick()
+  {
+    if (this.reads + this.writes < this.window)
+      return;
+    double fraction = (double) this.writes / (this.reads + this.writes);
+    int length = this.length();
+    if ((this.array != null) && (length >= this.growLength)
+        && (fraction >= this.writeFraction) && (this.gets < this.writes))
+      this.toSkipList();
+    else if ((this.skip != null)
+             && ((length < this.shrinkLength)
+                 || (fraction < this.writeFraction / 2)
+                 || (this.gets >= this.writes)))
+      this.toArray();
+    this.reads = 0;
+    this.writes = 0;
+    this.gets = 0;
+  } // tick()
+
+  /**
+   * Move the values from the array to a skip list.
+   */
+  void toSkipList()
+  {
+    this.skip = new SkipList<T>();
+    this.skip.appendAll(this.array.core.iterator());
+    this.array = null;
+  } // toSkipList()
+
+  /**
+   * Move the values from the skip list to an array.
+   */
+  void toArray()
+  {
+    this.array = new SortedArrayList<T>();
+    this.array.core = new ArrayList<T>(this.skip.length());
+    for (T val : this.skip)
+      this.array.core.add(val);
+    this.skip = null;
+  } // toArray()
+
+  // +------------------+------------------------------------------------
+  // | Observer Methods |
+  // +------------------+
+
+  /**
+   * Determine whether the list currently uses a skip list.
+   */
+  public boolean isSkipList()
+  {
+    return this.skip != null;
+  } // isSkipList()
+
+  // +-----------------------+-------------------------------------------
+  // | Methods from Iterable |
+  // +-----------------------+
+
+  /**
+   * Return an iterator that steps through the values of the list from
+   * smallest to largest.
+   */
+  public Iterator<T> iterator()
+  {
+    return new Iterator<T>()
+      {
+        /**
+         * The representation we are iterating.
+         */
+        SortedList<T> source = rep();
+
+        /**
+         * An iterator for that representation.
+         */
+        Iterator<T> core = this.source.iterator();
+
+        /**
+         * The value most recently returned by next.
+         */
+        T last;
+
+        /**
+         * The number of modifications at the time this iterator was
+         * created or last updated.
+         */
+        long mods = AdaptiveSortedList.this.mods;
+
+        void failFast()
+        {
+          if (this.mods != AdaptiveSortedList.this.mods)
+            throw new ConcurrentModificationException();
+        } // failFast()
+
+        public boolean hasNext()
+        {
+          failFast();
+          return this.core.hasNext();
+        } // hasNext()
+
+        public T next()
+        {
+          failFast();
+          return this.last = this.core.next();
+        } // next()
+
+        public void remove()
+        {
+          failFast();
+          this.core.remove();
+          // If the list has moved since we started, the values are
+          // now elsewhere, too
+          if (this.source != rep())
+            rep().remove(this.last);
+          this.mods = ++AdaptiveSortedList.this.mods;
+          AdaptiveSortedList.this.writes++;
+          tick();
+        } // remove()
+      }; // new Iterator<T>
+  } // iterator()
+
+  // +------------------------+------------------------------------------
+  // | Methods from SimpleSet |
+  // +------------------------+
+
+  /**
+   * Add a value to the set.
+   *
+   * @post contains(val)
+   * @post For all lav != val, if contains(lav) held before the call
+   *   to add, contains(lav) continues to hold.
+   */
+  public void add(T val)
+  {
+    if (this.array != null)
+      this.array.add(val);
+    else if (!this.skip.contains(val))
+      this.skip.add(val);
+    this.mods++;
+    this.writes++;
+    this.tick();
+  } // add(T val)
+
+  /**
+   * Determine if the set contains a particular value.
+   */
+  public boolean contains(T val)
+  {
+    boolean result = this.rep().contains(val);
+    this.reads++;
+    this.tick();
+    return result;
+  } // contains(T)
+
+  /**
+   * Remove an element from the set.
+   *
+   * @post !contains(val)
+   * @post For all lav != val, if contains(lav) held before the call
+   *   to remove, contains(lav) continues to hold.
+   */
+  public void remove(T val)
+  {
+    this.rep().remove(val);
+    this.mods++;
+    this.writes++;
+    this.tick();
+  } // remove(T)
+
+  // +--------------------------+----------------------------------------
+  // | Methods from SemiIndexed |
+  // +--------------------------+
+
+  /**
+   * Get the element at index i.  In a skip list, we walk to it, which
+   * takes linear time; whether to move back to an array is left to the
+   * end of the window.
+   *
+   * @throws IndexOutOfBoundsException
+   *   if the index is out of range (index < 0 || index >= length)
+   */
+  public T get(int i)
+  {
+    T result;
+    if (this.array != null)
+      result = this.array.get(i);
+    else
+      {
+        if ((i < 0) || (i >= this.skip.length()))
+          throw new IndexOutOfBoundsException("Index: " + i + ", Length: "
+                                              + this.skip.length());
+        Iterator<T> it = this.skip.iterator();
+        for (int j = 0; j < i; j++)
+          it.next();
+        result = it.next();
+      } // else
+    this.reads++;
+    this.gets++;
+    this.tick();
+    return result;
+  } // get(int)
+
+  /**
+   * Determine the number of elements in the collection.
+   */
+  public int length()
+  {
+    return this.rep().length();
+  } // length()
+} // class AdaptiveSortedList<T>
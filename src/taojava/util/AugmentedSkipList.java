@@ -0,0 +1,546 @@
+package taojava.util;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Skip lists that summarize the values each link skips over, so that
+ * we can summarize any range of values in O(log n) expected time,
+ * rather than visiting every value in the range.  The summary comes
+ * from a Monoid: a count, a sum, a minimum or maximum (see Monoids),
+ * or anything else that combines associatively.
+ *
+ * Each link records the summary of the values it skips over, up to
+ * and including the node it leads to, along with their number (its
+ * width), so get(i) and rank(val) also take O(log n) expected time.
+ * When a node is added or removed, we adjust the widths of the links
+ * that span it directly, and recompute their summaries level by level
+ * from the bottom, each from the few links below it.  A list made
+ * without a Monoid keeps only the widths, which is all that order
+ * statistics need.
+ *
+ * Like SkipList, an augmented skip list may hold several copies of a
+ * value.
+ */
+public class AugmentedSkipList<T extends Comparable<T>, A>
+    implements SortedList<T>
+{
+  // +-----------+-------------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The highest level a node can have.
+   */
+  static final int MAX_LEVEL = 20;
+
+  // +--------+----------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The summary we keep, or null if we keep none.
+   */
+  Monoid<T, A> monoid;
+
+  /**
+   * The dummy node at the front of the list.  It has every level.
+   */
+  Node front;
+
+  /**
+   * The dummy node at the back of the list.
+   */
+  Node back;
+
+  /**
+   * The highest level of any node we have added.  Links above this
+   * level lead from front to back, and we don't keep them up to date.
+   */
+  int height;
+
+  /**
+   * The number of values in the list.
+   */
+  int length;
+
+  /**
+   * The number of modifications to the list.  Used to determine
+   * whether an iterator is valid.
+   */
+  long mods;
+
+  /**
+   * The source of node heights.
+   */
+  Random random;
+
+  // +------------------+------------------------------------------------
+  // | Internal Classes |
+  // +------------------+
+
+  /**
+   * Nodes in the list.
+   */
+  class Node
+  {
+    /**
+     * The value, or null for front and back.
+     */
+    T val;
+
+    /**
+     * The next node at each level.
+     */
+    Node[] next;
+
+    /**
+     * The number of nodes each link skips over, counting the one it
+     * leads to (and counting back as a node).
+     */
+    int[] width;
+
+    /**
+     * The summary of the values each link skips over, including the
+     * value of the node it leads to, or null if we keep none.
+     */
+    A[] agg;
+
+    @SuppressWarnings("unchecked")
+    Node(T val, int level)
+    {
+      this.val = val;
+      this.next = (Node[]) new AugmentedSkipList.Node[level + 1];
+      this.width = new int[level + 1];
+      if (monoid != null)
+        this.agg = (A[]) new Object[level + 1];
+    } // Node(T, int)
+
+    /**
+     * Get the highest level of this node.
+     */
+    int top()
+    {
+      return this.next.length - 1;
+    } // top()
+  } // class Node
+
+  // +--------------+----------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create an empty list that keeps no summary, only the widths that
+   * get and rank need.
+   */
+  public AugmentedSkipList()
+  {
+    this(null);
+  } // AugmentedSkipList()
+
+  /**
+   * Create an empty list that keeps the given summary.
+   */
+  public AugmentedSkipList(Monoid<T, A> monoid)
+  {
+    this.monoid = monoid;
+    this.back = new Node(null, -1);
+    this.front = new Node(null, MAX_LEVEL);
+    for (int level = 0; level <= MAX_LEVEL; level++)
+      {
+        this.front.next[level] = this.back;
+        this.front.width[level] = 1;
+        if (monoid != null)
+          this.front.agg[level] = monoid.identity();
+      } // for
+    this.height = 0;
+    this.length = 0;
+    this.mods = 0;
+    this.random = new Random();
+  } // AugmentedSkipList(Monoid<T, A>)
+
+  // +-------------------------+-----------------------------------------
+  // | Internal Helper Methods |
+  // +-------------------------+
+
+  /**
+   * Pick a random height for a new node.
+   */
+  int randomHeight()
+  {
+    int height = 0;
+    while ((height < MAX_LEVEL) && this.random.nextBoolean())
+      height++;
+    return height;
+  } // randomHeight()
+
+  /**
+   * Recompute the summary of node's link at level from the links below
+   * it, which must be up to date.
+   */
+  void summarize(Node node, int level)
+  {
+    if (level == 0)
+      {
+        Node next = node.next[0];
+        node.agg[0] = (next == this.back) ? this.monoid.identity()
+                                          : this.monoid.lift(next.val);
+        return;
+      } // if
+    A agg = this.monoid.identity();
+    Node end = node.next[level];
+    for (Node n = node; n != end; n = n.next[level - 1])
+      agg = this.monoid.combine(agg, n.agg[level - 1]);
+    node.agg[level] = agg;
+  } // summarize(Node, int)
+
+  /**
+   * Find the last node smaller than val at every level up to height,
+   * and, if positions is not null, the positions of those nodes
+   * (counting front as position 0).
+   */
+  @SuppressWarnings("unchecked")
+  Node[] predecessors(T val, int[] positions)
+  {
+    Node[] update = (Node[]) new AugmentedSkipList.Node[this.height + 1];
+    Node node = this.front;
+    int pos = 0;
+    for (int level = this.height; level >= 0; level--)
+      {
+        while ((node.next[level] != this.back)
+               && (node.next[level].val.compareTo(val) < 0))
+          {
+            pos += node.width[level];
+            node = node.next[level];
+          } // while
+        update[level] = node;
+        if (positions != null)
+          positions[level] = pos;
+      } // for
+    return update;
+  } // predecessors(T, int[])
+
+  /**
+   * Unlink the node after update[0], where update[level] is the last
+   * node before it at each level.
+   */
+  void unlink(Node[] update)
+  {
+    Node victim = update[0].next[0];
+    for (int level = 0; level <= this.height; level++)
+      {
+        if (level <= victim.top())
+          {
+            update[level].width[level] += victim.width[level] - 1;
+            update[level].next[level] = victim.next[level];
+          } // if
+        else
+          update[level].width[level]--;
+      } // for
+    if (this.monoid != null)
+      for (int level = 0; level <= this.height; level++)
+        this.summarize(update[level], level);
+    this.length--;
+    this.mods++;
+  } // unlink(Node[])
+
+  /**
+   * Determine whether node holds a value smaller than hi.
+   */
+  boolean below(Node node, T hi)
+  {
+    return (node != this.back) && (node.val.compareTo(hi) < 0);
+  } // below(Node, T)
+
+  /**
+   * Remove the value at index i, which must be valid.
+   */
+  @SuppressWarnings("unchecked")
+  void removeAt(int i)
+  {
+    // Positions count from front, at 0, so the victim is at i+1
+    Node[] update = (Node[]) new AugmentedSkipList.Node[this.height + 1];
+    Node node = this.front;
+    int pos = 0;
+    for (int level = this.height; level >= 0; level--)
+      {
+        while ((node.next[level] != this.back)
+               && (pos + node.width[level] <= i))
+          {
+            pos += node.width[level];
+            node = node.next[level];
+          } // while
+        update[level] = node;
+      } // for
+    this.unlink(update);
+  } // removeAt(int)
+
+  /**
+   * Remove one copy of val, if there is one.
+   */
+  void removeOne(T val)
+  {
+    Node[] update = this.predecessors(val, null);
+    Node next = update[0].next[0];
+    if ((next != this.back) && (next.val.compareTo(val) == 0))
+      this.unlink(update);
+  } // removeOne(T)
+
+  // +-----------------------+-------------------------------------------
+  // | Methods from Iterable |
+  // +-----------------------+
+
+  /**
+   * Return an iterator that steps through the values of the list from
+   * smallest to largest.
+   */
+  public Iterator<T> iterator()
+  {
+    return new Iterator<T>()
+      {
+        /**
+         * The node with the value to be returned by next.
+         */
+        Node next = front.next[0];
+
+        /**
+         * The index of the value to be returned by next.
+         */
+        int index = 0;
+
+        /**
+         * Whether we may remove the value most recently returned.
+         */
+        boolean canRemove = false;
+
+        /**
+         * The number of modifications at the time this iterator was
+         * created or last updated.
+         */
+        long mods = AugmentedSkipList.this.mods;
+
+        void failFast()
+        {
+          if (this.mods != AugmentedSkipList.this.mods)
+            throw new ConcurrentModificationException();
+        } // failFast()
+
+        public boolean hasNext()
+        {
+          failFast();
+          return this.next != back;
+        } // hasNext()
+
+        public T next()
+        {
+          if (!this.hasNext())
+            throw new NoSuchElementException();
+          T val = this.next.val;
+          this.next = this.next.next[0];
+          this.index++;
+          this.canRemove = true;
+          return val;
+        } // next()
+
+        public void remove()
+        {
+          failFast();
+          if (!this.canRemove)
+            throw new IllegalStateException("Must call next before remove");
+          // We remove by index, so we get this copy of the value
+          removeAt(--this.index);
+          this.canRemove = false;
+          this.mods = AugmentedSkipList.this.mods;
+        } // remove()
+      }; // new Iterator<T>
+  } // iterator()
+
+  // +------------------------+------------------------------------------
+  // | Methods from SimpleSet |
+  // +------------------------+
+
+  /**
+   * Add a value to the set.
+   *
+   * @post contains(val)
+   * @post For all lav != val, if contains(lav) held before the call
+   *   to add, contains(lav) continues to hold.
+   */
+  public void add(T val)
+  {
+    int top = this.randomHeight();
+    // Links from front above the old height skip the whole list
+    for (int level = this.height + 1; level <= top; level++)
+      this.front.width[level] = this.length + 1;
+    this.height = Math.max(this.height, top);
+    int[] positions = new int[this.height + 1];
+    Node[] update = this.predecessors(val, positions);
+    Node node = new Node(val, top);
+    // The new node goes at position positions[0] + 1
+    for (int level = 0; level <= this.height; level++)
+      {
+        if (level <= top)
+          {
+            int before = positions[0] - positions[level] + 1;
+            node.width[level] = update[level].width[level] - before + 1;
+            update[level].width[level] = before;
+            node.next[level] = update[level].next[level];
+            update[level].next[level] = node;
+          } // if
+        else
+          update[level].width[level]++;
+      } // for
+    // Both summaries at each level depend only on the links below
+    if (this.monoid != null)
+      for (int level = 0; level <= this.height; level++)
+        {
+          this.summarize(update[level], level);
+          if (level <= top)
+            this.summarize(node, level);
+        } // for
+    this.length++;
+    this.mods++;
+  } // add(T)
+
+  /**
+   * Determine if the set contains a particular value.
+   */
+  public boolean contains(T val)
+  {
+    Node next = this.predecessors(val, null)[0].next[0];
+    return (next != this.back) && (next.val.compareTo(val) == 0);
+  } // contains(T)
+
+  /**
+   * Remove an element from the set (every copy, if there are several).
+   *
+   * @post !contains(val)
+   * @post For all lav != val, if contains(lav) held before the call
+   *   to remove, contains(lav) continues to hold.
+   */
+  public void remove(T val)
+  {
+    // The nodes before the first copy are also before the next
+    Node[] update = this.predecessors(val, null);
+    while ((update[0].next[0] != this.back)
+           && (update[0].next[0].val.compareTo(val) == 0))
+      this.unlink(update);
+  } // remove(T)
+
+  // +--------------------------+----------------------------------------
+  // | Methods from SemiIndexed |
+  // +--------------------------+
+
+  /**
+   * Get the element at index i.
+   *
+   * @throws IndexOutOfBoundsException
+   *   if the index is out of range (index < 0 || index >= length)
+   */
+  public T get(int i)
+  {
+    if ((i < 0) || (i >= this.length))
+      throw new IndexOutOfBoundsException("Index: " + i + ", Length: "
+                                          + this.length);
+    Node node = this.front;
+    int pos = 0;
+    for (int level = this.height; level >= 0; level--)
+      {
+        while ((node.next[level] != this.back)
+               && (pos + node.width[level] <= i + 1))
+          {
+            pos += node.width[level];
+            node = node.next[level];
+          } // while
+      } // for
+    return node.val;
+  } // get(int)
+
+  /**
+   * Determine the number of elements in the collection.
+   */
+  public int length()
+  {
+    return this.length;
+  } // length()
+
+  // +-----------+-------------------------------------------------------
+  // | Summaries |
+  // +-----------+
+
+  /**
+   * Determine the number of values smaller than val.
+   */
+  public int rank(T val)
+  {
+    Node node = this.front;
+    int pos = 0;
+    for (int level = this.height; level >= 0; level--)
+      {
+        while ((node.next[level] != this.back)
+               && (node.next[level].val.compareTo(val) < 0))
+          {
+            pos += node.width[level];
+            node = node.next[level];
+          } // while
+      } // for
+    return pos;
+  } // rank(T)
+
+  /**
+   * Get the summary we keep.
+   *
+   * @throws UnsupportedOperationException
+   *   if we keep none
+   */
+  Monoid<T, A> summary()
+  {
+    if (this.monoid == null)
+      throw new UnsupportedOperationException("No summary");
+    return this.monoid;
+  } // summary()
+
+  /**
+   * Summarize the values v with lo <= v < hi.  We find the last node
+   * before lo, then climb while the links stay below hi, and descend
+   * once they would not, so we take O(log k) steps past it for a range
+   * of k values.
+   */
+  public A aggregate(T lo, T hi)
+  {
+    A result = this.summary().identity();
+    if (lo.compareTo(hi) >= 0)
+      return result;
+    Node node = this.predecessors(lo, null)[0];
+    int level = 0;
+    while (true)
+      {
+        int top = Math.min(node.top(), this.height);
+        while ((level < top) && this.below(node.next[level + 1], hi))
+          level++;
+        if (this.below(node.next[level], hi))
+          {
+            result = this.monoid.combine(result, node.agg[level]);
+            node = node.next[level];
+          } // if
+        else if (level == 0)
+          return result;
+        else
+          level--;
+      } // while
+  } // aggregate(T, T)
+
+  /**
+   * Summarize every value in the list.
+   */
+  public A aggregate()
+  {
+    A result = this.summary().identity();
+    for (Node node = this.front; node != this.back;
+         node = node.next[this.height])
+      result = this.monoid.combine(result, node.agg[this.height]);
+    return result;
+  } // aggregate()
+} // class AugmentedSkipList<T, A>
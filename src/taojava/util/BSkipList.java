@@ -0,0 +1,489 @@
+package taojava.util;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Sorted lists implemented with B-skiplists: skip lists whose nodes
+ * are blocks of up to CAPACITY values rather than single values.  The
+ * towers link blocks, ordered by their smallest values, so a search
+ * follows far fewer pointers than in a SkipList and finishes with a
+ * binary search inside one block.
+ *
+ * Each link also records its width, the number of values from the
+ * start of its block to the start of the block it points to, so
+ * get(i) takes O(log n) steps as well.
+ *
+ * Like SortedArrayList, a B-skiplist holds at most one copy of each
+ * value.
+ */
+public class BSkipList<T extends Comparable<T>>
+    implements SortedList<T>
+{
+  // +-----------+-------------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The number of values a block can hold.
+   */
+  static final int CAPACITY = 32;
+
+  /**
+   * The highest level a block can have.
+   */
+  static final int MAX_LEVEL = 20;
+
+  // +--------+----------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The dummy block at the front of the list.  It holds no values and
+   * has every level.
+   */
+  Block front;
+
+  /**
+   * The number of values in the list.
+   */
+  int length;
+
+  /**
+   * The number of modifications to the list.  Used to determine
+   * whether an iterator is valid.
+   */
+  long mods;
+
+  /**
+   * The generator for block heights.
+   */
+  Random random;
+
+  // +------------------+------------------------------------------------
+  // | Internal Classes |
+  // +------------------+
+
+  /**
+   * Blocks of values.
+   */
+  class Block
+  {
+    /**
+     * The values, in order.  Only the first count are used.
+     */
+    Object[] vals;
+
+    /**
+     * The number of values in the block.
+     */
+    int count;
+
+    /**
+     * The following block at each level (null at the end).
+     */
+    Block[] next;
+
+    /**
+     * widths[level] is the number of values from the start of this
+     * block to the start of next[level] (or to the end of the list).
+     */
+    int[] widths;
+
+    @SuppressWarnings("unchecked")
+    Block(int height)
+    {
+      this.vals = new Object[CAPACITY];
+      this.count = 0;
+      this.next = (Block[]) new BSkipList.Block[height];
+      this.widths = new int[height];
+    } // Block(int)
+
+    /**
+     * Get the ith value in the block.
+     */
+    @SuppressWarnings("unchecked")
+    T get(int i)
+    {
+      return (T) this.vals[i];
+    } // get(int)
+
+    /**
+     * Find the index of val in this block, or where it should go.
+     */
+    int findIndex(T val)
+    {
+      int lb = 0;
+      int ub = this.count;
+      while (lb < ub)
+        {
+          int mid = (lb + ub) >>> 1;
+          int order = val.compareTo(this.get(mid));
+          if (order == 0)
+            return mid;
+          else if (order > 0)
+            lb = mid + 1;
+          else
+            ub = mid;
+        } // while
+      return lb;
+    } // findIndex(T)
+  } // class Block
+
+  // +--------------+----------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new, empty, list.
+   */
+  public BSkipList()
+  {
+    this.front = new Block(MAX_LEVEL + 1);
+    this.length = 0;
+    this.mods = 0;
+    this.random = new Random();
+  } // BSkipList()
+
+  // +-------------------------+-----------------------------------------
+  // | Internal Helper Methods |
+  // +-------------------------+
+
+  /**
+   * Pick a random height for a new block.
+   */
+  int randomHeight()
+  {
+    int height = 1;
+    while ((height <= MAX_LEVEL) && this.random.nextBoolean())
+      height++;
+    return height;
+  } // randomHeight()
+
+  /**
+   * Find, at every level, the last block whose smallest value is no
+   * larger than val (or the front block).  Fills in update[level] with
+   * that block and positions[level] with the number of values before
+   * it.
+   */
+  void search(T val, Block[] update, int[] positions)
+  {
+    Block current = this.front;
+    int pos = 0;
+    for (int level = MAX_LEVEL; level >= 0; level--)
+      {
+        while ((current.next[level] != null)
+               && (val.compareTo(current.next[level].get(0)) >= 0))
+          {
+            pos += current.widths[level];
+            current = current.next[level];
+          } // while
+        update[level] = current;
+        positions[level] = pos;
+      } // for
+  } // search(T, Block[], int[])
+
+  /**
+   * Find the last block whose smallest value is no larger than val,
+   * or the front block.
+   */
+  Block findBlock(T val)
+  {
+    Block current = this.front;
+    for (int level = MAX_LEVEL; level >= 0; level--)
+      while ((current.next[level] != null)
+             && (val.compareTo(current.next[level].get(0)) >= 0))
+        current = current.next[level];
+    return current;
+  } // findBlock(T)
+
+  /**
+   * Unlink an empty block.  Its smallest value was val.
+   */
+  void unlink(Block block, T val)
+  {
+    Block current = this.front;
+    for (int level = MAX_LEVEL; level >= 0; level--)
+      {
+        while ((current.next[level] != block)
+               && (current.next[level] != null)
+               && (val.compareTo(current.next[level].get(0)) > 0))
+          current = current.next[level];
+        if (current.next[level] == block)
+          {
+            current.next[level] = block.next[level];
+            current.widths[level] += block.widths[level];
+          } // if the block is linked at this level
+      } // for
+  } // unlink(Block, T)
+
+  /**
+   * Remove the value at index i of block, given the search path that
+   * led to the block.
+   */
+  void removeAt(Block block, int i, Block[] update)
+  {
+    T val = block.get(0);
+    System.arraycopy(block.vals, i + 1, block.vals, i, block.count - i - 1);
+    block.vals[--block.count] = null;
+    for (int level = 0; level <= MAX_LEVEL; level++)
+      {
+        if (level < block.next.length)
+          block.widths[level]--;
+        else
+          update[level].widths[level]--;
+      } // for
+    if (block.count == 0)
+      this.unlink(block, val);
+    this.length--;
+    this.mods++;
+  } // removeAt(Block, int, Block[])
+
+  // +-----------------------+-------------------------------------------
+  // | Methods from Iterable |
+  // +-----------------------+
+
+  /**
+   * Return an iterator that steps through the values of the list from
+   * smallest to largest.
+   */
+  public Iterator<T> iterator()
+  {
+    return new Iterator<T>()
+      {
+        /**
+         * The block containing the value to be returned by next.
+         */
+        Block block = front;
+
+        /**
+         * The index of that value within the block.
+         */
+        int index = 0;
+
+        /**
+         * The block containing the value most recently returned.
+         */
+        Block last;
+
+        /**
+         * The index of that value within its block.
+         */
+        int lastIndex;
+
+        /**
+         * The number of modifications at the time this iterator was
+         * created or last updated.
+         */
+        long mods = BSkipList.this.mods;
+
+        /**
+         * Whether we can remove the value most recently returned.
+         */
+        boolean canRemove = false;
+
+        void failFast()
+        {
+          if (this.mods != BSkipList.this.mods)
+            throw new ConcurrentModificationException();
+        } // failFast()
+
+        public boolean hasNext()
+        {
+          failFast();
+          while ((this.index >= this.block.count)
+                 && (this.block.next[0] != null))
+            {
+              this.block = this.block.next[0];
+              this.index = 0;
+            } // while
+          return this.index < this.block.count;
+        } // hasNext()
+
+        public T next()
+        {
+          if (!this.hasNext())
+            throw new NoSuchElementException();
+          this.canRemove = true;
+          this.last = this.block;
+          this.lastIndex = this.index;
+          return this.block.get(this.index++);
+        } // next()
+
+        @SuppressWarnings("unchecked")
+        public void remove()
+        {
+          failFast();
+          if (!this.canRemove)
+            throw new IllegalStateException("Must call next before remove");
+          // hasNext may have moved us on to a later block since, so we
+          // remove the slot we saved.  Searching for the smallest value
+          // of its block finds the links that span it, whose widths
+          // shrink.
+          Block[] update = (Block[]) new BSkipList.Block[MAX_LEVEL + 1];
+          int[] positions = new int[MAX_LEVEL + 1];
+          search(this.last.get(0), update, positions);
+          removeAt(this.last, this.lastIndex, update);
+          // The block may be unlinked, but its links still lead on
+          if (this.block == this.last)
+            this.index--;
+          this.mods = BSkipList.this.mods;
+          this.canRemove = false;
+        } // remove()
+      }; // new Iterator<T>
+  } // iterator()
+
+  // +------------------------+------------------------------------------
+  // | Methods from SimpleSet |
+  // +------------------------+
+
+  /**
+   * Add a value to the set.
+   *
+   * @post contains(val)
+   * @post For all lav != val, if contains(lav) held before the call
+   *   to add, contains(lav) continues to hold.
+   */
+  @SuppressWarnings("unchecked")
+  public void add(T val)
+  {
+    Block[] update = (Block[]) new BSkipList.Block[MAX_LEVEL + 1];
+    int[] positions = new int[MAX_LEVEL + 1];
+    this.search(val, update, positions);
+
+    // Pick the block for val: the one found, or the first block if
+    // val is smaller than everything.
+    Block target = update[0];
+    int targetPos = positions[0];
+    if (target == this.front)
+      {
+        target = this.front.next[0];
+        targetPos = 0;
+        if (target == null)
+          {
+            // The list is empty, so we need a first block
+            target = new Block(this.randomHeight());
+            for (int level = 0; level < target.next.length; level++)
+              this.front.next[level] = target;
+          } // if the list is empty
+      } // if val is smaller than every block
+    int index = target.findIndex(val);
+    if ((index < target.count) && (val.compareTo(target.get(index)) == 0))
+      return;
+
+    // Split a full block, linking the upper half in after it
+    Block found = target;
+    if (target.count == CAPACITY)
+      {
+        Block half = new Block(this.randomHeight());
+        int halfPos = targetPos + CAPACITY / 2;
+        for (int level = 0; level < half.next.length; level++)
+          {
+            Block pred = (level < target.next.length) ? target : update[level];
+            int predPos =
+                (level < target.next.length) ? targetPos : positions[level];
+            half.next[level] = pred.next[level];
+            pred.next[level] = half;
+            half.widths[level] = pred.widths[level] - (halfPos - predPos);
+            pred.widths[level] = halfPos - predPos;
+          } // for
+        System.arraycopy(target.vals, CAPACITY / 2, half.vals, 0,
+                         CAPACITY / 2);
+        for (int i = CAPACITY / 2; i < CAPACITY; i++)
+          target.vals[i] = null;
+        target.count = CAPACITY / 2;
+        half.count = CAPACITY / 2;
+        if (index > CAPACITY / 2)
+          {
+            index -= CAPACITY / 2;
+            target = half;
+          } // if val belongs in the upper half
+      } // if the block is full
+
+    // Insert the value
+    System.arraycopy(target.vals, index, target.vals, index + 1,
+                     target.count - index);
+    target.vals[index] = val;
+    target.count++;
+
+    // Widen the link that spans the new value at each level
+    for (int level = 0; level <= MAX_LEVEL; level++)
+      {
+        if (level < target.next.length)
+          target.widths[level]++;
+        else if (level < found.next.length)
+          // target was split from found, which spans it at this level
+          found.widths[level]++;
+        else
+          update[level].widths[level]++;
+      } // for
+    this.length++;
+    this.mods++;
+  } // add(T val)
+
+  /**
+   * Determine if the set contains a particular value.
+   */
+  public boolean contains(T val)
+  {
+    Block block = this.findBlock(val);
+    int index = block.findIndex(val);
+    return (index < block.count) && (val.compareTo(block.get(index)) == 0);
+  } // contains(T)
+
+  /**
+   * Remove an element from the set.
+   *
+   * @post !contains(val)
+   * @post For all lav != val, if contains(lav) held before the call
+   *   to remove, contains(lav) continues to hold.
+   */
+  @SuppressWarnings("unchecked")
+  public void remove(T val)
+  {
+    Block[] update = (Block[]) new BSkipList.Block[MAX_LEVEL + 1];
+    int[] positions = new int[MAX_LEVEL + 1];
+    this.search(val, update, positions);
+    Block block = update[0];
+    int index = block.findIndex(val);
+    if ((index < block.count) && (val.compareTo(block.get(index)) == 0))
+      this.removeAt(block, index, update);
+  } // remove(T)
+
+  // +--------------------------+----------------------------------------
+  // | Methods from SemiIndexed |
+  // +--------------------------+
+
+  /**
+   * Get the element at index i.
+   *
+   * @throws IndexOutOfBoundsException
+   *   if the index is out of range (index < 0 || index >= length)
+   */
+  public T get(int i)
+  {
+    if ((i < 0) || (i >= this.length))
+      throw new IndexOutOfBoundsException("Index: " + i + ", Length: "
+                                          + this.length);
+    Block current = this.front;
+    int pos = 0;
+    for (int level = MAX_LEVEL; level >= 0; level--)
+      while ((current.next[level] != null)
+             && (pos + current.widths[level] <= i))
+        {
+          pos += current.widths[level];
+          current = current.next[level];
+        } // while
+    return current.get(i - pos);
+  } // get(int)
+
+  /**
+   * Determine the number of elements in the collection.
+   */
+  public int length()
+  {
+    return this.length;
+  } // length()
+} // class BSkipList<T>
@@ -0,0 +1,303 @@
+package taojava.util;
+
+import java.util.Iterator;
+
+/**
+ * Sorted lists with a Bloom filter in front of contains.  When most
+ * calls to contains are misses, the filter rejects nearly all of them
+ * in a few hash probes, without searching the underlying list.
+ *
+ * Bloom filters cannot forget, so a removed value keeps passing the
+ * filter (and costs a search) until we rebuild the filter from the
+ * list.  We rebuild once the removals since the last rebuild exceed
+ * a fraction of the length of the list.
+ *
+ * Values are hashed with hashCode, so two values that compare as equal
+ * must have the same hash code.
+ */
+public class BloomFilteredSortedList<T extends Comparable<T>>
+    implements SortedList<T>
+{
+  // +-----------+-------------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The default capacity of the first stage of the filter.
+   */
+  public static final int INITIAL_CAPACITY = 1024;
+
+  /**
+   * The default false-positive rate.
+   */
+  public static final double FPP = 0.01;
+
+  /**
+   * The default fraction of removals that triggers a rebuild.
+   */
+  public static final double REBUILD_FRACTION = 0.25;
+
+  // +--------+----------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The underlying sorted list.
+   */
+  SortedList<T> slist;
+
+  /**
+   * The filter.  Every value in slist passes it.
+   */
+  ScalableBloomFilter<T> filter;
+
+  /**
+   * The fraction of removals that triggers a rebuild.
+   */
+  double rebuildFraction;
+
+  /**
+   * The number of removals since the filter was last rebuilt.
+   */
+  int removals;
+
+  /**
+   * The number of calls to contains.
+   */
+  long probes;
+
+  /**
+   * The number of calls to contains that the filter answered.
+   */
+  long rejects;
+
+  /**
+   * The number of calls to contains that passed the filter, but
+   * found nothing in the list.
+   */
+  long falsePositives;
+
+  /**
+   * The number of times we have rebuilt the filter.
+   */
+  int rebuilds;
+
+  // +--------------+----------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Put a filter with the default settings in front of slist.
+   */
+  public BloomFilteredSortedList(SortedList<T> slist)
+  {
+    this(slist, INITIAL_CAPACITY, FPP, REBUILD_FRACTION);
+  } // BloomFilteredSortedList(SortedList<T>)
+
+  /**
+   * Put a filter in front of slist, with a first stage of
+   * initialCapacity values and a false-positive rate of about fpp.
+   * The filter is rebuilt once the removals exceed rebuildFraction of
+   * the length of the list.
+   */
+  public BloomFilteredSortedList(SortedList<T> slist, int initialCapacity,
+                                 double fpp, double rebuildFraction)
+  {
+    this.slist = slist;
+    this.filter = new ScalableBloomFilter<T>(initialCapacity, fpp);
+    this.rebuildFraction = rebuildFraction;
+    this.rebuild();
+    this.rebuilds = 0;
+  } // BloomFilteredSortedList(SortedList<T>, int, double, double)
+
+  // +-------------------------+-----------------------------------------
+  // | Internal Helper Methods |
+  // +-------------------------+
+
+  /**
+   * Note a removal, rebuilding the filter if there have been too many.
+   */
+  void removed()
+  {
+    if (++this.removals
+        > this.rebuildFraction * Math.max(this.slist.length(),
+                                          this.filter.initialCapacity))
+      this.rebuild();
+  } // removed()
+
+  /**
+   * Rebuild the filter from the values in the list.
+   */
+  void rebuild()
+  {
+    this.filter.clear();
+    for (T val : this.slist)
+      this.filter.add(val);
+    this.removals = 0;
+    this.rebuilds++;
+  } // rebuild()
+
+  // +------------------+------------------------------------------------
+  // | Observer Methods |
+  // +------------------+
+
+  /**
+   * Get the number of calls to contains.
+   */
+  public long probes()
+  {
+    return this.probes;
+  } // probes()
+
+  /**
+   * Get the number of calls to contains that the filter answered
+   * without searching the list.
+   */
+  public long rejects()
+  {
+    return this.rejects;
+  } // rejects()
+
+  /**
+   * Get the number of calls to contains that searched the list but
+   * found nothing.  These include values removed since the last
+   * rebuild.
+   */
+  public long falsePositives()
+  {
+    return this.falsePositives;
+  } // falsePositives()
+
+  /**
+   * Get the fraction of misses that the filter failed to reject.
+   */
+  public double falsePositiveRate()
+  {
+    long misses = this.rejects + this.falsePositives;
+    return (misses == 0) ? 0 : (double) this.falsePositives / misses;
+  } // falsePositiveRate()
+
+  /**
+   * Get the number of times the filter has been rebuilt.
+   */
+  public int rebuilds()
+  {
+    return this.rebuilds;
+  } // rebuilds()
+
+  /**
+   * Reset the counts of probes, rejects, and false positives.
+   */
+  public void resetStats()
+  {
+    this.probes = 0;
+    this.rejects = 0;
+    this.falsePositives = 0;
+  } // resetStats()
+
+  // +-----------------------+-------------------------------------------
+  // | Methods from Iterable |
+  // +-----------------------+
+
+  /**
+   * Return an iterator that steps through the values of the list from
+   * smallest to largest.
+   */
+  public Iterator<T> iterator()
+  {
+    return new Iterator<T>()
+      {
+        // An underlying iterator.
+        Iterator<T> core = BloomFilteredSortedList.this.slist.iterator();
+
+        public boolean hasNext()
+        {
+          return this.core.hasNext();
+        } // hasNext()
+
+        public T next()
+        {
+          return this.core.next();
+        } // next()
+
+        public void remove()
+        {
+          this.core.remove();
+          // A rebuild only reads the list, so it can't upset core
+          removed();
+        } // remove()
+      }; // new Iterator<T>
+  } // iterator()
+
+  // +------------------------+------------------------------------------
+  // | Methods from SimpleSet |
+  // +------------------------+
+
+  /**
+   * Add a value to the set.
+   *
+   * @post contains(val)
+   * @post For all lav != val, if contains(lav) held before the call
+   *   to add, contains(lav) continues to hold.
+   */
+  public void add(T val)
+  {
+    this.slist.add(val);
+    this.filter.add(val);
+  } // add(T val)
+
+  /**
+   * Determine if the set contains a particular value.
+   */
+  public boolean contains(T val)
+  {
+    this.probes++;
+    if (!this.filter.mightContain(val))
+      {
+        this.rejects++;
+        return false;
+      } // if the filter rejects val
+    boolean result = this.slist.contains(val);
+    if (!result)
+      this.falsePositives++;
+    return result;
+  } // contains(T)
+
+  /**
+   * Remove an element from the set.
+   *
+   * @post !contains(val)
+   * @post For all lav != val, if contains(lav) held before the call
+   *   to remove, contains(lav) continues to hold.
+   */
+  public void remove(T val)
+  {
+    int length = this.slist.length();
+    this.slist.remove(val);
+    if (this.slist.length() != length)
+      this.removed();
+  } // remove(T)
+
+  // +--------------------------+----------------------------------------
+  // | Methods from SemiIndexed |
+  // +--------------------------+
+
+  /**
+   * Get the element at index i.
+   *
+   * @throws IndexOutOfBoundsException
+   *   if the index is out of range (index < 0 || index >= length)
+   */
+  public T get(int i)
+  {
+    return this.slist.get(i);
+  } // get(int)
+
+  /**
+   * Determine the number of elements in the collection.
+   */
+  public int length()
+  {
+    return this.slist.length();
+  } // length()
+} // class BloomFilteredSortedList<T>
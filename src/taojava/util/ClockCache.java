@@ -0,0 +1,152 @@
+package taojava.util;
+
+import java.util.HashMap;
+
+/**
+ * Small fixed-size caches that remember whether keys are present,
+ * evicting with the CLOCK algorithm.  Slots sit on a circle with a
+ * hand.  Each lookup sets a slot's reference bit; to make room, the
+ * hand sweeps forward, clearing reference bits, and evicts the first
+ * slot whose bit is already clear.  That approximates LRU without
+ * reordering anything on a hit.
+ *
+ * Keys are found with hashCode and equals.
+ */
+class ClockCache<K>
+{
+  // +--------+----------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The slot of each cached key.
+   */
+  HashMap<K, Integer> slots;
+
+  /**
+   * The key in each slot, or null for a free slot.
+   */
+  Object[] keys;
+
+  /**
+   * Whether the key in each slot is present.
+   */
+  boolean[] present;
+
+  /**
+   * Whether each slot has been used since the hand last passed.
+   */
+  boolean[] referenced;
+
+  /**
+   * The next slot to consider for eviction.
+   */
+  int hand;
+
+  /**
+   * The number of lookups that found a key and that didn't.
+   */
+  long hits;
+  long misses;
+
+  // +--------------+----------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create an empty cache with room for capacity keys.
+   */
+  ClockCache(int capacity)
+  {
+    if (capacity < 1)
+      throw new IllegalArgumentException("Invalid capacity: " + capacity);
+    this.slots = new HashMap<K, Integer>(2 * capacity);
+    this.keys = new Object[capacity];
+    this.present = new boolean[capacity];
+    this.referenced = new boolean[capacity];
+    this.hand = 0;
+  } // ClockCache(int)
+
+  // +---------+---------------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Look up key.
+   *
+   * @return TRUE or FALSE if we know whether key is present, null if
+   *   we don't.
+   */
+  Boolean lookup(K key)
+  {
+    Integer slot = this.slots.get(key);
+    if (slot == null)
+      {
+        this.misses++;
+        return null;
+      } // if
+    this.hits++;
+    this.referenced[slot] = true;
+    return this.present[slot];
+  } // lookup(K)
+
+  /**
+   * Remember whether key is present, evicting another key if needed.
+   */
+  void put(K key, boolean present)
+  {
+    Integer slot = this.slots.get(key);
+    if (slot == null)
+      {
+        while ((this.keys[this.hand] != null) && this.referenced[this.hand])
+          {
+            this.referenced[this.hand] = false;
+            this.hand = (this.hand + 1) % this.keys.length;
+          } // while
+        slot = this.hand;
+        this.hand = (this.hand + 1) % this.keys.length;
+        if (this.keys[slot] != null)
+          this.slots.remove(this.keys[slot]);
+        this.keys[slot] = key;
+        this.slots.put(key, slot);
+      } // if key is not cached
+    this.present[slot] = present;
+    this.referenced[slot] = false;
+  } // put(K, boolean)
+
+  /**
+   * Update the entry for key, if there is one.
+   */
+  void update(K key, boolean present)
+  {
+    Integer slot = this.slots.get(key);
+    if (slot != null)
+      this.present[slot] = present;
+  } // update(K, boolean)
+
+  /**
+   * Forget key, if it is cached.
+   */
+  void invalidate(K key)
+  {
+    Integer slot = this.slots.remove(key);
+    if (slot != null)
+      {
+        this.keys[slot] = null;
+        this.referenced[slot] = false;
+      } // if
+  } // invalidate(K)
+
+  /**
+   * Forget every key.
+   */
+  void clear()
+  {
+    this.slots.clear();
+    for (int i = 0; i < this.keys.length; i++)
+      {
+        this.keys[i] = null;
+        this.referenced[i] = false;
+      } // for
+  } // clear()
+} // class ClockCache<K>
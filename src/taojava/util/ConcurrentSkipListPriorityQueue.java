@@ -0,0 +1,442 @@
+package taojava.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free priority queues built on a lock-free skip list (after
+ * Herlihy and Shavit).  Any number of threads may add and poll at
+ * once.
+ *
+ * Polling walks the bottom level from the front and claims the first
+ * node that no one else has claimed.  Claimed nodes stay linked for a
+ * while, as in the queues of Linden and Jonsson: once a poll has to
+ * walk past BATCH of them, it unlinks every claimed node before its
+ * own at once, rather than every poll contending to unlink its own
+ * node at the front of the list.
+ *
+ * In relaxed mode, a poll first takes a random walk down from a low
+ * level of the list (a spray, as in the SprayList of Alistarh et al.)
+ * and claims the first free node after where it lands.  Polls then
+ * spread over the first O(p log p) values for p threads, instead of
+ * all fighting over the smallest one, at the cost of sometimes
+ * returning a value that is not quite the smallest.
+ *
+ * Equal values are allowed; they come out in the order they were
+ * added (in exact mode).
+ */
+public class ConcurrentSkipListPriorityQueue<T extends Comparable<T>>
+{
+  // +-----------+-------------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The highest level a node can have.
+   */
+  static final int MAX_LEVEL = 24;
+
+  /**
+   * The number of claimed nodes a poll may walk past before it cleans
+   * them up.
+   */
+  static final int BATCH = 32;
+
+  // +------------------+------------------------------------------------
+  // | Internal Classes |
+  // +------------------+
+
+  /**
+   * Nodes in the list.  A node is claimed by the poll that will return
+   * its value, and is unlinked once its links are all marked.
+   */
+  static class Node<T>
+  {
+    /**
+     * The value, or null for the head and tail.
+     */
+    final T value;
+
+    /**
+     * The order in which the node was added, which breaks ties
+     * between equal values.
+     */
+    final long seq;
+
+    /**
+     * The links to the following nodes, one per level.  Each is either
+     * a node or, once this node is being unlinked, a Mark holding one.
+     * (A Mark costs one allocation when we unlink, where an
+     * AtomicMarkableReference would cost two extra hops on every step
+     * of every search.)
+     */
+    final AtomicReferenceArray<Object> next;
+
+    /**
+     * Whether a poll has taken this node.
+     */
+    final AtomicBoolean claimed;
+
+    Node(T value, long seq, int height)
+    {
+      this.value = value;
+      this.seq = seq;
+      this.next = new AtomicReferenceArray<Object>(height + 1);
+      this.claimed = new AtomicBoolean(false);
+    } // Node(T, long, int)
+
+    /**
+     * Get the highest level of this node.
+     */
+    int top()
+    {
+      return this.next.length() - 1;
+    } // top()
+
+    /**
+     * Get the next node at a level, marked or not.
+     */
+    @SuppressWarnings("unchecked")
+    Node<T> next(int level)
+    {
+      Object link = this.next.get(level);
+      return (Node<T>) ((link instanceof Mark) ? ((Mark) link).node : link);
+    } // next(int)
+
+    /**
+     * Mark the link at a level, if it is not marked already.
+     */
+    void mark(int level)
+    {
+      Object link;
+      do
+        {
+          link = this.next.get(level);
+          if (link instanceof Mark)
+            return;
+        }
+      while (!this.next.compareAndSet(level, link, new Mark(link)));
+    } // mark(int)
+
+    /**
+     * Swing the link at a level from expected to update, provided it
+     * is not marked.
+     */
+    boolean swing(int level, Node<T> expected, Node<T> update)
+    {
+      return this.next.compareAndSet(level, expected, update);
+    } // swing(int, Node<T>, Node<T>)
+  } // class Node<T>
+
+  /**
+   * Marked links.
+   */
+  static class Mark
+  {
+    /**
+     * The node the link leads to.
+     */
+    final Object node;
+
+    Mark(Object node)
+    {
+      this.node = node;
+    } // Mark(Object)
+  } // class Mark
+
+  // +--------+----------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The sentinel before every node.
+   */
+  final Node<T> head;
+
+  /**
+   * The sentinel after every node.
+   */
+  final Node<T> tail;
+
+  /**
+   * The source of sequence numbers.
+   */
+  final AtomicLong seqs;
+
+  /**
+   * The number of values added, less the number polled.
+   */
+  final LongAdder size;
+
+  /**
+   * Whether some thread is cleaning up claimed nodes.
+   */
+  final AtomicBoolean cleaning;
+
+  /**
+   * The number of threads we expect, or 0 for exact polls.
+   */
+  final int threads;
+
+  // +--------------+----------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create an empty queue whose polls always return the smallest value.
+   */
+  public ConcurrentSkipListPriorityQueue()
+  {
+    this(0);
+  } // ConcurrentSkipListPriorityQueue()
+
+  /**
+   * Create an empty queue whose polls spread out over the first few
+   * values, for use by about threads threads.  With threads of 0 or 1,
+   * polls are exact.
+   */
+  public ConcurrentSkipListPriorityQueue(int threads)
+  {
+    this.tail = new Node<T>(null, Long.MAX_VALUE, MAX_LEVEL);
+    this.head = new Node<T>(null, Long.MIN_VALUE, MAX_LEVEL);
+    for (int level = 0; level <= MAX_LEVEL; level++)
+      this.head.next.set(level, this.tail);
+    this.seqs = new AtomicLong();
+    this.size = new LongAdder();
+    this.cleaning = new AtomicBoolean(false);
+    this.threads = (threads > 1) ? threads : 0;
+  } // ConcurrentSkipListPriorityQueue(int)
+
+  // +-------------------------+-----------------------------------------
+  // | Internal Helper Methods |
+  // +-------------------------+
+
+  /**
+   * Determine if node comes before the position (value, seq).
+   */
+  boolean before(Node<T> node, T value, long seq)
+  {
+    if (node == this.head)
+      return true;
+    if (node == this.tail)
+      return false;
+    int order = node.value.compareTo(value);
+    return (order < 0) || ((order == 0) && (node.seq < seq));
+  } // before(Node<T>, T, long)
+
+  /**
+   * Find the nodes on either side of (value, seq) at every level,
+   * unlinking any marked nodes we meet on the way.
+   */
+  void find(T value, long seq, Node<T>[] preds, Node<T>[] succs)
+  {
+    retry: while (true)
+      {
+        Node<T> pred = this.head;
+        for (int level = MAX_LEVEL; level >= 0; level--)
+          {
+            Node<T> curr = pred.next(level);
+            while (true)
+              {
+                Object link = curr.next.get(level);
+                while (link instanceof Mark)
+                  {
+                    @SuppressWarnings("unchecked")
+                    Node<T> succ = (Node<T>) ((Mark) link).node;
+                    if (!pred.swing(level, curr, succ))
+                      continue retry;
+                    curr = succ;
+                    link = curr.next.get(level);
+                  } // while curr is being unlinked
+                if (!this.before(curr, value, seq))
+                  break;
+                pred = curr;
+                curr = curr.next(level);
+              } // while
+            preds[level] = pred;
+            succs[level] = curr;
+          } // for
+        return;
+      } // while
+  } // find(T, long, Node<T>[], Node<T>[])
+
+  /**
+   * Pick a random height for a new node.
+   */
+  static int randomLevel()
+  {
+    int bits = ThreadLocalRandom.current().nextInt();
+    return Math.min(MAX_LEVEL, Integer.numberOfTrailingZeros(~bits));
+  } // randomLevel()
+
+  /**
+   * Claim the first free node at or after start on the bottom level,
+   * cleaning up if we pass too many claimed nodes.
+   *
+   * @return the node, or null if every node from start on is claimed.
+   */
+  Node<T> claimFrom(Node<T> start)
+  {
+    int skipped = 0;
+    for (Node<T> curr = start; curr != this.tail; curr = curr.next(0))
+      {
+        if (!curr.claimed.get() && curr.claimed.compareAndSet(false, true))
+          {
+            this.size.decrement();
+            if (skipped >= BATCH)
+              this.clean(curr);
+            return curr;
+          } // if we claimed curr
+        skipped++;
+      } // for
+    return null;
+  } // claimFrom(Node<T>)
+
+  /**
+   * Unlink the claimed nodes before last, which we have just claimed.
+   * We mark every link of each of them, then one search for last
+   * unlinks them all.  (Relaxed polls leave claimed nodes between free
+   * ones, so we can't stop at the first free node.  And an earlier
+   * cleaner may already have unlinked last, so we may not meet it.)
+   */
+  void clean(Node<T> last)
+  {
+    if (!this.cleaning.compareAndSet(false, true))
+      return;
+    try
+      {
+        for (Node<T> curr = this.head.next(0);
+             (curr != last) && (curr != this.tail); curr = curr.next(0))
+          if (curr.claimed.get())
+            for (int level = curr.top(); level >= 0; level--)
+              curr.mark(level);
+        for (int level = last.top(); level >= 0; level--)
+          last.mark(level);
+        @SuppressWarnings("unchecked")
+        Node<T>[] preds = (Node<T>[]) new Node[MAX_LEVEL + 1];
+        @SuppressWarnings("unchecked")
+        Node<T>[] succs = (Node<T>[]) new Node[MAX_LEVEL + 1];
+        this.find(last.value, last.seq, preds, succs);
+      } // try
+    finally
+      {
+        this.cleaning.set(false);
+      } // finally
+  } // clean(Node<T>)
+
+  /**
+   * Take a random walk down from a low level of the list, moving right
+   * a random number of steps at each level, and return where we land.
+   */
+  Node<T> spray()
+  {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int lg = 32 - Integer.numberOfLeadingZeros(this.threads);
+    Node<T> node = this.head;
+    for (int level = Math.min(lg, MAX_LEVEL); level >= 0; level--)
+      {
+        int steps = random.nextInt(lg + 1);
+        for (int i = 0; i < steps; i++)
+          {
+            Node<T> next = node.next(level);
+            if (next == this.tail)
+              break;
+            node = next;
+          } // for
+      } // for
+    return (node == this.head) ? node.next(0) : node;
+  } // spray()
+
+  // +---------+---------------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Add a value to the queue.
+   */
+  @SuppressWarnings("unchecked")
+  public void add(T value)
+  {
+    long seq = this.seqs.getAndIncrement();
+    int top = randomLevel();
+    Node<T>[] preds = (Node<T>[]) new Node[MAX_LEVEL + 1];
+    Node<T>[] succs = (Node<T>[]) new Node[MAX_LEVEL + 1];
+    Node<T> node = new Node<T>(value, seq, top);
+    this.size.increment();
+
+    // Link in at the bottom, which puts the value in the queue
+    while (true)
+      {
+        this.find(value, seq, preds, succs);
+        for (int level = 0; level <= top; level++)
+          node.next.set(level, succs[level]);
+        if (preds[0].swing(0, succs[0], node))
+          break;
+      } // while
+
+    // Link in at the higher levels, unless someone is unlinking it
+    for (int level = 1; level <= top; level++)
+      {
+        while (true)
+          {
+            Object succ = node.next.get(level);
+            if (succ instanceof Mark)
+              return;
+            if ((succ != succs[level])
+                && !node.next.compareAndSet(level, succ, succs[level]))
+              return;
+            if (preds[level].swing(level, succs[level], node))
+              break;
+            this.find(value, seq, preds, succs);
+          } // while
+      } // for
+  } // add(T)
+
+  /**
+   * Remove and return the smallest value (or, in relaxed mode, one of
+   * the smallest values), or null if the queue is empty.
+   */
+  public T poll()
+  {
+    Node<T> node = null;
+    if (this.threads > 0)
+      node = this.claimFrom(this.spray());
+    if (node == null)
+      node = this.claimFrom(this.head.next(0));
+    return (node == null) ? null : node.value;
+  } // poll()
+
+  /**
+   * Get the smallest value without removing it, or null if the queue
+   * is empty.  With other threads polling, the value may be gone by
+   * the time we return it.
+   */
+  public T peek()
+  {
+    for (Node<T> curr = this.head.next(0); curr != this.tail;
+         curr = curr.next(0))
+      if (!curr.claimed.get())
+        return curr.value;
+    return null;
+  } // peek()
+
+  /**
+   * Get the number of values in the queue.  With other threads adding
+   * and polling, this is only an estimate.
+   */
+  public int size()
+  {
+    return (int) this.size.sum();
+  } // size()
+
+  /**
+   * Determine whether the queue is empty.
+   */
+  public boolean isEmpty()
+  {
+    return this.peek() == null;
+  } // isEmpty()
+} // class ConcurrentSkipListPriorityQueue<T>
@@ -0,0 +1,440 @@
+package taojava.util;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Deterministic (1-2-3) skip lists, after Munro, Papadakis, and
+ * Sedgewick.  There is no randomness: instead, we keep the number of
+ * nodes each upper-level node spans (its gap) between 2 and 4, so the
+ * list has at most log2(n)+1 levels and a search looks at no more than
+ * four nodes per level, even in the worst case.
+ *
+ * Each level is a linked list ending in a node with an infinite key.
+ * A node above the bottom level holds the largest key in its gap, and
+ * its down link leads to the first node of the gap.  add splits gaps
+ * of 4 (promoting a node) on the way down, and remove joins or
+ * rebalances gaps of 2 (demoting a node) on the way down, so neither
+ * needs a second pass.  get(i), however, walks the bottom level.
+ *
+ * Like SortedArrayList, a deterministic skip list holds at most one
+ * copy of each value.
+ */
+public class DeterministicSkipList<T extends Comparable<T>>
+    implements SortedList<T>
+{
+  // +--------+----------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The node at the top of the list.  Its key is infinite and its gap
+   * is the whole of the level below.
+   */
+  Node header;
+
+  /**
+   * The sentinel below the bottom level.
+   */
+  Node bottom;
+
+  /**
+   * The sentinel after the last node of each level.
+   */
+  Node tail;
+
+  /**
+   * The number of values in the list.
+   */
+  int length;
+
+  /**
+   * The number of modifications to the list.  Used to determine
+   * whether an iterator is valid.
+   */
+  long mods;
+
+  // +------------------+------------------------------------------------
+  // | Internal Classes |
+  // +------------------+
+
+  /**
+   * Nodes in the list.
+   */
+  class Node
+  {
+    /**
+     * The key, or null for infinity.  Above the bottom level, this is
+     * the same object as the key of the last node in our gap.
+     */
+    T key;
+
+    /**
+     * The next node on this level.
+     */
+    Node right;
+
+    /**
+     * The first node of our gap on the level below.
+     */
+    Node down;
+
+    Node(T key, Node right, Node down)
+    {
+      this.key = key;
+      this.right = right;
+      this.down = down;
+    } // Node(T, Node, Node)
+  } // class Node
+
+  // +--------------+----------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new, empty, list.
+   */
+  public DeterministicSkipList()
+  {
+    this.bottom = new Node(null, null, null);
+    this.bottom.right = this.bottom;
+    this.bottom.down = this.bottom;
+    this.tail = new Node(null, null, this.bottom);
+    this.tail.right = this.tail;
+    this.header =
+        new Node(null, this.tail, new Node(null, this.tail, this.bottom));
+    this.length = 0;
+    this.mods = 0;
+  } // DeterministicSkipList()
+
+  // +-------------------------+-----------------------------------------
+  // | Internal Helper Methods |
+  // +-------------------------+
+
+  /**
+   * Determine if key (possibly infinite) is smaller than val.
+   */
+  boolean below(T key, T val)
+  {
+    return (key != null) && (key.compareTo(val) < 0);
+  } // below(T, T)
+
+  /**
+   * Determine if key (possibly infinite) equals val.
+   */
+  boolean equal(T key, T val)
+  {
+    return (key != null) && (key.compareTo(val) == 0);
+  } // equal(T, T)
+
+  /**
+   * Count the nodes in the gap below node.
+   */
+  int gap(Node node)
+  {
+    int size = 1;
+    for (Node n = node.down; n.key != node.key; n = n.right)
+      size++;
+    return size;
+  } // gap(Node)
+
+  /**
+   * Find the first node in the gap below node whose key is at least
+   * val.
+   */
+  Node child(Node node, T val)
+  {
+    Node c = node.down;
+    while (below(c.key, val))
+      c = c.right;
+    return c;
+  } // child(Node, T)
+
+  /**
+   * Find the first node on the bottom level whose key is at least val.
+   */
+  Node ceiling(T val)
+  {
+    Node node = this.header;
+    while (node.down != this.bottom)
+      node = this.child(node, val);
+    return node;
+  } // ceiling(T)
+
+  /**
+   * Split node, whose gap has 4 nodes, into two nodes with gaps of 2.
+   */
+  void split(Node node)
+  {
+    Node second = node.down.right;
+    node.right = new Node(node.key, node.right, second.right);
+    node.key = second.key;
+  } // split(Node)
+
+  // +-----------------------+-------------------------------------------
+  // | Methods from Iterable |
+  // +-----------------------+
+
+  /**
+   * Return an iterator that steps through the values of the list from
+   * smallest to largest.
+   */
+  public Iterator<T> iterator()
+  {
+    return new Iterator<T>()
+      {
+        /**
+         * The node with the value to be returned by next.
+         */
+        Node next = ceilingOfAll();
+
+        /**
+         * The value most recently returned by next, or null if we
+         * cannot remove.
+         */
+        T last = null;
+
+        /**
+         * The number of modifications at the time this iterator was
+         * created or last updated.
+         */
+        long mods = DeterministicSkipList.this.mods;
+
+        Node ceilingOfAll()
+        {
+          Node node = header;
+          while (node.down != bottom)
+            node = node.down;
+          return node;
+        } // ceilingOfAll()
+
+        void failFast()
+        {
+          if (this.mods != DeterministicSkipList.this.mods)
+            throw new ConcurrentModificationException();
+        } // failFast()
+
+        public boolean hasNext()
+        {
+          failFast();
+          return this.next.key != null;
+        } // hasNext()
+
+        public T next()
+        {
+          if (!this.hasNext())
+            throw new NoSuchElementException();
+          this.last = this.next.key;
+          this.next = this.next.right;
+          return this.last;
+        } // next()
+
+        public void remove()
+        {
+          failFast();
+          if (this.last == null)
+            throw new IllegalStateException("Must call next before remove");
+          // Removing may restructure the list, so we search again
+          DeterministicSkipList.this.remove(this.last);
+          this.next = ceiling(this.last);
+          this.last = null;
+          this.mods = DeterministicSkipList.this.mods;
+        } // remove()
+      }; // new Iterator<T>
+  } // iterator()
+
+  // +------------------------+------------------------------------------
+  // | Methods from SimpleSet |
+  // +------------------------+
+
+  /**
+   * Add a value to the set.
+   *
+   * @post contains(val)
+   * @post For all lav != val, if contains(lav) held before the call
+   *   to add, contains(lav) continues to hold.
+   */
+  public void add(T val)
+  {
+    // The header splits like any other node, and gets a new header
+    if (this.gap(this.header) == 4)
+      {
+        this.split(this.header);
+        this.header = new Node(null, this.tail, this.header);
+      } // if the header is full
+
+    // Descend, splitting full gaps so there is room below
+    Node node = this.header;
+    while (node.down.down != this.bottom)
+      {
+        Node c = this.child(node, val);
+        if (this.gap(c) == 4)
+          {
+            this.split(c);
+            if (below(c.key, val))
+              c = c.right;
+          } // if c is full
+        node = c;
+      } // while
+
+    // Insert before the first bottom node that is not smaller.  We
+    // can't link in before it, so we move its key to a new node after
+    // it and reuse it for val.
+    Node c = this.child(node, val);
+    if (equal(c.key, val))
+      return;
+    c.right = new Node(c.key, c.right, this.bottom);
+    c.key = val;
+    this.length++;
+    this.mods++;
+  } // add(T val)
+
+  /**
+   * Determine if the set contains a particular value.
+   */
+  public boolean contains(T val)
+  {
+    return equal(this.ceiling(val).key, val);
+  } // contains(T)
+
+  /**
+   * Remove an element from the set.
+   *
+   * @post !contains(val)
+   * @post For all lav != val, if contains(lav) held before the call
+   *   to remove, contains(lav) continues to hold.
+   */
+  public void remove(T val)
+  {
+    // Drop levels whose only node is the header's
+    while ((this.header.down.down != this.bottom)
+           && (this.header.down.right == this.tail))
+      this.header = this.header.down;
+
+    // Descend, growing gaps of 2 so there is something to spare below.
+    // path holds the nodes we descend through.
+    ArrayList<Node> path = new ArrayList<Node>();
+    Node node = this.header;
+    while (node.down.down != this.bottom)
+      {
+        Node prev = null;
+        Node c = node.down;
+        while (below(c.key, val))
+          {
+            prev = c;
+            c = c.right;
+          } // while
+        if (this.gap(c) == 2)
+          {
+            if (c.key != node.key)
+              {
+                Node sib = c.right;
+                if (this.gap(sib) > 2)
+                  {
+                    // Borrow the first node of the next gap
+                    c.key = sib.down.key;
+                    sib.down = sib.down.right;
+                  } // if the next gap can spare one
+                else
+                  {
+                    // Join the next gap
+                    c.key = sib.key;
+                    c.right = sib.right;
+                  } // else
+              } // if there is a next gap
+            else if (this.gap(prev) > 2)
+              {
+                // Borrow the last node of the previous gap
+                Node second = prev.down;
+                while (second.right.key != prev.key)
+                  second = second.right;
+                c.down = second.right;
+                prev.key = second.key;
+              } // if the previous gap can spare one
+            else
+              {
+                // Join the previous gap
+                prev.key = c.key;
+                prev.right = c.right;
+                c = prev;
+              } // else
+          } // if c has nothing to spare
+        path.add(c);
+        node = c;
+      } // while
+
+    // Unlink from the bottom level
+    Node prev = null;
+    Node c = node.down;
+    while (below(c.key, val))
+      {
+        prev = c;
+        c = c.right;
+      } // while
+    if (!equal(c.key, val))
+      return;
+    if (prev == null)
+      {
+        // We can't unlink the first node of a gap, so we replace it
+        // with its successor, which is in the same gap.
+        c.key = c.right.key;
+        c.right = c.right.right;
+      } // if c is first in its gap
+    else
+      {
+        prev.right = c.right;
+        // If val was the largest in some gaps, prev's key now is
+        for (Node p : path)
+          if (p.key == c.key)
+            p.key = prev.key;
+      } // else
+    this.length--;
+    this.mods++;
+  } // remove(T)
+
+  // +--------------------------+----------------------------------------
+  // | Methods from SemiIndexed |
+  // +--------------------------+
+
+  /**
+   * Get the element at index i.
+   *
+   * @throws IndexOutOfBoundsException
+   *   if the index is out of range (index < 0 || index >= length)
+   */
+  public T get(int i)
+  {
+    if ((i < 0) || (i >= this.length))
+      throw new IndexOutOfBoundsException("Index: " + i + ", Length: "
+                                          + this.length);
+    Iterator<T> it = this.iterator();
+    for (int j = 0; j < i; j++)
+      it.next();
+    return it.next();
+  } // get(int)
+
+  /**
+   * Determine the number of elements in the collection.
+   */
+  public int length()
+  {
+    return this.length;
+  } // length()
+
+  // +-----------------+-------------------------------------------------
+  // | Instrumentation |
+  // +-----------------+
+
+  /**
+   * Determine the number of levels above the bottom one.
+   */
+  public int height()
+  {
+    int height = 0;
+    for (Node node = this.header; node.down != this.bottom; node = node.down)
+      height++;
+    return height;
+  } // height()
+} // class DeterministicSkipList<T>
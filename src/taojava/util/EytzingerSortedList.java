@@ -0,0 +1,200 @@
+package taojava.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Read-only sorted lists stored in Eytzinger (breadth-first) order.
+ * The element at position k of the array has children at positions
+ * 2k and 2k+1, as in a heap, so a search walks down an implicit
+ * binary search tree.  The first few levels of that tree share a few
+ * cache lines, and the search has no early exit, so each step depends
+ * only on the previous comparison.  We also keep a table that maps
+ * ranks to positions, so get(i) is still constant time.
+ *
+ * Note that the layout only applies to the references.  Each
+ * comparison still follows a reference to the element itself, and on
+ * large lists of boxed values those loads dominate the cost of a
+ * search, so measure before preferring this to SortedArrayList.  For
+ * ints, IntEytzingerSortedList keeps the values themselves in the
+ * tree, where the layout pays off.
+ *
+ * Create one with freeze(slist).  The list cannot be modified.
+ */
+public class EytzingerSortedList<T extends Comparable<T>>
+    implements SortedList<T>
+{
+  // +--------+----------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The elements, in Eytzinger order.  Position 0 is unused.
+   */
+  Object[] tree;
+
+  /**
+   * ranks[i] is the position in tree of the ith smallest element.
+   */
+  int[] ranks;
+
+  /**
+   * The number of elements.
+   */
+  int length;
+
+  // +--------------+----------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a list containing the values of sorted, which must be in
+   * non-decreasing order.
+   */
+  EytzingerSortedList(ArrayList<T> sorted)
+  {
+    this.length = sorted.size();
+    this.tree = new Object[this.length + 1];
+    this.ranks = new int[this.length];
+    this.fill(sorted, 0, 1);
+  } // EytzingerSortedList(ArrayList<T>)
+
+  /**
+   * Create a read-only copy of slist.
+   */
+  public static <T extends Comparable<T>> EytzingerSortedList<T>
+    freeze(SortedList<T> slist)
+  {
+    ArrayList<T> sorted = new ArrayList<T>();
+    for (T val : slist)
+      sorted.add(val);
+    return new EytzingerSortedList<T>(sorted);
+  } // freeze(SortedList<T>)
+
+  // +-------------------------+-----------------------------------------
+  // | Internal Helper Methods |
+  // +-------------------------+
+
+  /**
+   * Fill in the subtree rooted at position k with sorted values,
+   * starting with the value at index next.
+   *
+   * @return next
+   *   The index of the first value not used in the subtree.
+   */
+  int fill(ArrayList<T> sorted, int next, int k)
+  {
+    if (k > this.length)
+      return next;
+    next = this.fill(sorted, next, 2 * k);
+    this.tree[k] = sorted.get(next);
+    this.ranks[next] = k;
+    return this.fill(sorted, next + 1, 2 * k + 1);
+  } // fill(ArrayList<T>, int, int)
+
+  /**
+   * Find the position of the first element greater than or equal to
+   * val, or 0 if there is no such element.
+   */
+  @SuppressWarnings("unchecked")
+  int lowerBound(T val)
+  {
+    int k = 1;
+    while (k <= this.length)
+      k = 2 * k + ((val.compareTo((T) this.tree[k]) > 0) ? 1 : 0);
+    // The path went left at the answer and right ever since, so we
+    // drop the trailing ones and the final zero.
+    return k >>> (Integer.numberOfTrailingZeros(~k) + 1);
+  } // lowerBound(T)
+
+  // +-----------------------+-------------------------------------------
+  // | Methods from Iterable |
+  // +-----------------------+
+
+  /**
+   * Return a read-only iterator that steps through the values of the
+   * list from smallest to largest.
+   */
+  public Iterator<T> iterator()
+  {
+    return new Iterator<T>()
+      {
+        int i = 0;
+
+        public boolean hasNext()
+        {
+          return this.i < EytzingerSortedList.this.length;
+        } // hasNext()
+
+        public T next()
+        {
+          if (!this.hasNext())
+            throw new NoSuchElementException();
+          return EytzingerSortedList.this.get(this.i++);
+        } // next()
+
+        public void remove()
+        {
+          throw new UnsupportedOperationException();
+        } // remove()
+      }; // new Iterator<T>
+  } // iterator()
+
+  // +------------------------+------------------------------------------
+  // | Methods from SimpleSet |
+  // +------------------------+
+
+  /**
+   * Unsupported: the list is read-only.
+   */
+  public void add(T val)
+  {
+    throw new UnsupportedOperationException("EytzingerSortedList is read-only");
+  } // add(T)
+
+  /**
+   * Determine if the set contains a particular value.
+   */
+  @SuppressWarnings("unchecked")
+  public boolean contains(T val)
+  {
+    int k = this.lowerBound(val);
+    return (k != 0) && (val.compareTo((T) this.tree[k]) == 0);
+  } // contains(T)
+
+  /**
+   * Unsupported: the list is read-only.
+   */
+  public void remove(T val)
+  {
+    throw new UnsupportedOperationException("EytzingerSortedList is read-only");
+  } // remove(T)
+
+  // +--------------------------+----------------------------------------
+  // | Methods from SemiIndexed |
+  // +--------------------------+
+
+  /**
+   * Get the element at index i.
+   *
+   * @throws IndexOutOfBoundsException
+   *   if the index is out of range (index < 0 || index >= length)
+   */
+  @SuppressWarnings("unchecked")
+  public T get(int i)
+  {
+    if ((i < 0) || (i >= this.length))
+      throw new IndexOutOfBoundsException("Index: " + i + ", Length: "
+                                          + this.length);
+    return (T) this.tree[this.ranks[i]];
+  } // get(int)
+
+  /**
+   * Determine the number of elements in the collection.
+   */
+  public int length()
+  {
+    return this.length;
+  } // length()
+} // class EytzingerSortedList<T>
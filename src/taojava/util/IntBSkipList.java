@@ -0,0 +1,682 @@
+package taojava.util;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Sorted lists of ints implemented with B-skiplists, as in BSkipList,
+ * but with the blocks laid out in a few int arrays rather than as
+ * objects.  A block is just a number: its links and their widths sit
+ * side by side in links, its values in a stretch of vals, and its
+ * first value in firsts.  A search compares against the first value
+ * of each block it passes and then searches one block, so each step
+ * reads one line of links and a small, dense array of first values,
+ * rather than a block, its array of links, and its array of widths.
+ * The blocks are larger than those of BSkipList, since shifting ints
+ * within a block is cheap and a larger block means fewer blocks to
+ * pass.  Blocks are between half full and full, so a list of n values
+ * takes between 4n and 8n bytes, plus about 100 bytes of links per
+ * block.
+ *
+ * Each link records its width, so get(i) and rank(val) take O(log n)
+ * expected time, as do add and removeOne.
+ *
+ * Unlike BSkipList, the list may hold several copies of a value, and
+ * remove removes every copy.
+ */
+public class IntBSkipList
+    implements SortedList<Integer>
+{
+  // +-----------+-------------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The number of values a block can hold.
+   */
+  static final int CAPACITY = 256;
+
+  /**
+   * The highest level a block can have.  With BRANCHING = 4, that is
+   * enough for 4^12 blocks, more than any list can hold.
+   */
+  static final int MAX_LEVEL = 12;
+
+  /**
+   * A block has each level above the first with probability
+   * 1/BRANCHING.  Whether a search moves on or drops a level depends
+   * on the value sought, so the processor can't predict it.  With a
+   * wider branching a search moves on more often but drops fewer
+   * levels, and guesses wrong about half as often as with 2.
+   */
+  static final int BRANCHING = 4;
+
+  /**
+   * The number of levels we leave room for in links for each block.
+   */
+  static final int LEVELS = MAX_LEVEL + 1;
+
+  /**
+   * The number of candidates at which a search within a block switches
+   * from binary search to counting, as in IntSortedArrayList.
+   */
+  static final int SCAN = 16;
+
+  /**
+   * The dummy block at the front of the list.  It holds no values and
+   * has every level.  Since no link leads to it, a link to FRONT marks
+   * the end of a level.
+   */
+  static final int FRONT = 0;
+
+  // +--------+----------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The links.  For block b and level l, links[2*(b*LEVELS + l)] is the
+   * following block at that level (FRONT at the end), and the entry
+   * after it is the number of values from the start of b to the start
+   * of that block (or to the end of the list).
+   */
+  int[] links;
+
+  /**
+   * The values.  Block b holds its values, in order, in the counts[b]
+   * entries starting at b*CAPACITY.
+   */
+  int[] vals;
+
+  /**
+   * The first value of each block, which is all that a search reads
+   * of the blocks it passes.
+   */
+  int[] firsts;
+
+  /**
+   * The number of values in each block.
+   */
+  int[] counts;
+
+  /**
+   * The number of levels of each block.
+   */
+  int[] heights;
+
+  /**
+   * The number of blocks we have handed out, including the front block
+   * and any free blocks.
+   */
+  int blocks;
+
+  /**
+   * The most recently unlinked block, or FRONT if there is none.  The
+   * first entry of a free block's values holds the next free block.
+   */
+  int free;
+
+  /**
+   * The highest level of any block we have added.  Links from front
+   * above this level lead nowhere, and we don't keep their widths up
+   * to date.
+   */
+  int height;
+
+  /**
+   * The number of values in the list.
+   */
+  int length;
+
+  /**
+   * The number of modifications to the list.  Used to determine
+   * whether an iterator is valid.
+   */
+  long mods;
+
+  /**
+   * The generator for block heights.
+   */
+  Random random;
+
+  /**
+   * update[level] is the block at which the most recent search left
+   * that level.
+   */
+  int[] update;
+
+  /**
+   * positions[level] is the number of values before update[level].
+   */
+  int[] positions;
+
+  // +--------------+----------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new, empty, list.
+   */
+  public IntBSkipList()
+  {
+    this.links = new int[2 * 2 * LEVELS];
+    this.vals = new int[2 * CAPACITY];
+    this.firsts = new int[2];
+    this.counts = new int[2];
+    this.heights = new int[2];
+    this.heights[FRONT] = LEVELS;
+    this.blocks = 1;
+    this.free = FRONT;
+    this.height = 0;
+    this.length = 0;
+    this.mods = 0;
+    this.random = new Random();
+    this.update = new int[LEVELS];
+    this.positions = new int[LEVELS];
+  } // IntBSkipList()
+
+  // +-------------------------+-----------------------------------------
+  // | Internal Helper Methods |
+  // +-------------------------+
+
+  /**
+   * Find the index in links of the link from block at level.  Its
+   * width follows it.
+   */
+  static int link(int block, int level)
+  {
+    return 2 * (block * LEVELS + level);
+  } // link(int, int)
+
+  /**
+   * Find the index in block of the first value that is no smaller than
+   * val (counts[block], if there is none).
+   */
+  int findIndex(int block, int val)
+  {
+    int start = block * CAPACITY;
+    int lo = start;
+    int n = this.counts[block];
+    // Invariant: the index we want is in [lo, lo+n]
+    while (n > SCAN)
+      {
+        int half = n >>> 1;
+        lo = (this.vals[lo + half] < val) ? lo + half : lo;
+        n -= half;
+      } // while
+    int smaller = 0;
+    for (int i = lo; i < lo + n; i++)
+      smaller += (this.vals[i] < val) ? 1 : 0;
+    return lo - start + smaller;
+  } // findIndex(int, int)
+
+  /**
+   * Create a block of random height, raising the height of the list
+   * to match if need be.  The links from front at the new levels span
+   * the whole list, and become part of the most recent search.  The
+   * caller sets the links of the new block.
+   */
+  int newBlock()
+  {
+    int levels = 1;
+    while ((levels <= MAX_LEVEL) && (this.random.nextInt(BRANCHING) == 0))
+      levels++;
+    for (int level = this.height + 1; level < levels; level++)
+      {
+        this.links[link(FRONT, level) + 1] = this.length;
+        this.update[level] = FRONT;
+        this.positions[level] = 0;
+      } // for
+    this.height = Math.max(this.height, levels - 1);
+    int block = this.free;
+    if (block != FRONT)
+      this.free = this.vals[block * CAPACITY];
+    else
+      {
+        if (this.blocks == this.counts.length)
+          this.grow();
+        block = this.blocks++;
+      } // else
+    this.counts[block] = 0;
+    this.heights[block] = levels;
+    return block;
+  } // newBlock()
+
+  /**
+   * Double the number of blocks we have room for.
+   */
+  void grow()
+  {
+    int room = 2 * this.counts.length;
+    this.links = Arrays.copyOf(this.links, 2 * room * LEVELS);
+    this.vals = Arrays.copyOf(this.vals, room * CAPACITY);
+    this.firsts = Arrays.copyOf(this.firsts, room);
+    this.counts = Arrays.copyOf(this.counts, room);
+    this.heights = Arrays.copyOf(this.heights, room);
+  } // grow()
+
+  /**
+   * Find, at every level, the last block whose first value is smaller
+   * than val (or the front block), and the number of values before
+   * it.  The first copy of val, or the place it belongs, is then
+   * either in update[0] or at the start of the next block.
+   */
+  void search(int val)
+  {
+    int[] links = this.links;
+    int[] firsts = this.firsts;
+    int current = FRONT;
+    int pos = 0;
+    for (int level = this.height; level >= 0; level--)
+      {
+        int at;
+        int next;
+        while (((next = links[at = link(current, level)]) != FRONT)
+               && (firsts[next] < val))
+          {
+            pos += links[at + 1];
+            current = next;
+          } // while
+        this.update[level] = current;
+        this.positions[level] = pos;
+      } // for
+  } // search(int)
+
+  /**
+   * Find, at every level, the last block that starts at or before
+   * index i, and the number of values before it.  update[0] is then
+   * the block holding the value at index i.
+   */
+  void locate(int i)
+  {
+    int[] links = this.links;
+    int current = FRONT;
+    int pos = 0;
+    for (int level = this.height; level >= 0; level--)
+      {
+        int at;
+        while ((links[at = link(current, level)] != FRONT)
+               && (pos + links[at + 1] <= i))
+          {
+            pos += links[at + 1];
+            current = links[at];
+          } // while
+        this.update[level] = current;
+        this.positions[level] = pos;
+      } // for
+  } // locate(int)
+
+  /**
+   * Remove the value at index i of block, where the most recent search
+   * left each level above the block's height at a block whose link
+   * spans it.  start is the number of values before the block.
+   */
+  void removeAt(int block, int i, int start)
+  {
+    int base = block * CAPACITY;
+    System.arraycopy(this.vals, base + i + 1, this.vals, base + i,
+                     this.counts[block] - i - 1);
+    this.counts[block]--;
+    this.firsts[block] = this.vals[base];
+    for (int level = 0; level <= this.height; level++)
+      {
+        if (level < this.heights[block])
+          this.links[link(block, level) + 1]--;
+        else
+          this.links[link(this.update[level], level) + 1]--;
+      } // for
+    if (this.counts[block] == 0)
+      this.unlink(block, start);
+    this.length--;
+    this.mods++;
+  } // removeAt(int, int, int)
+
+  /**
+   * Unlink an empty block, which starts at index start, and free it.
+   * No other block is empty, so the blocks before it are exactly those
+   * that start before start.  The block's own links are left alone, so
+   * an iterator in it can still move on.
+   */
+  void unlink(int block, int start)
+  {
+    int[] links = this.links;
+    int current = FRONT;
+    int pos = 0;
+    for (int level = this.height; level >= 0; level--)
+      {
+        int at;
+        while ((links[at = link(current, level)] != FRONT)
+               && (pos + links[at + 1] < start))
+          {
+            pos += links[at + 1];
+            current = links[at];
+          } // while
+        if (links[at] == block)
+          {
+            int from = link(block, level);
+            links[at] = links[from];
+            links[at + 1] += links[from + 1];
+          } // if the block is linked at this level
+      } // for
+    this.vals[block * CAPACITY] = this.free;
+    this.free = block;
+  } // unlink(int, int)
+
+  // +-------------------+-----------------------------------------------
+  // | Primitive Methods |
+  // +-------------------+
+
+  /**
+   * Add a copy of val to the list.
+   */
+  public void add(int val)
+  {
+    this.search(val);
+    // Pick the block for val: the one found, or the first block if
+    // val is no larger than everything.
+    int target = this.update[0];
+    int targetPos = this.positions[0];
+    if (target == FRONT)
+      {
+        target = this.links[link(FRONT, 0)];
+        targetPos = 0;
+        if (target == FRONT)
+          {
+            // The list is empty, so we need a first block
+            target = this.newBlock();
+            for (int level = 0; level < this.heights[target]; level++)
+              {
+                this.links[link(FRONT, level)] = target;
+                this.links[link(FRONT, level) + 1] = 0;
+                this.links[link(target, level)] = FRONT;
+                this.links[link(target, level) + 1] = 0;
+              } // for
+          } // if the list is empty
+      } // if val is no larger than the first block
+    int index = this.findIndex(target, val);
+
+    // Split a full block, linking the upper half in after it
+    int found = target;
+    if (this.counts[target] == CAPACITY)
+      {
+        int half = this.newBlock();
+        int halfPos = targetPos + CAPACITY / 2;
+        for (int level = 0; level < this.heights[half]; level++)
+          {
+            boolean own = level < this.heights[target];
+            int pred = link(own ? target : this.update[level], level);
+            int predPos = own ? targetPos : this.positions[level];
+            int at = link(half, level);
+            this.links[at] = this.links[pred];
+            this.links[pred] = half;
+            this.links[at + 1] = this.links[pred + 1] - (halfPos - predPos);
+            this.links[pred + 1] = halfPos - predPos;
+          } // for
+        System.arraycopy(this.vals, target * CAPACITY + CAPACITY / 2,
+                         this.vals, half * CAPACITY, CAPACITY / 2);
+        this.counts[target] = CAPACITY / 2;
+        this.counts[half] = CAPACITY / 2;
+        this.firsts[half] = this.vals[half * CAPACITY];
+        if (index > CAPACITY / 2)
+          {
+            index -= CAPACITY / 2;
+            target = half;
+          } // if val belongs in the upper half
+      } // if the block is full
+
+    // Insert the value
+    int base = target * CAPACITY;
+    System.arraycopy(this.vals, base + index, this.vals, base + index + 1,
+                     this.counts[target] - index);
+    this.vals[base + index] = val;
+    this.counts[target]++;
+    this.firsts[target] = this.vals[base];
+
+    // Widen the link that spans the new value at each level
+    for (int level = 0; level <= this.height; level++)
+      {
+        if (level < this.heights[target])
+          this.links[link(target, level) + 1]++;
+        else if (level < this.heights[found])
+          // target was split from found, which spans it at this level
+          this.links[link(found, level) + 1]++;
+        else
+          this.links[link(this.update[level], level) + 1]++;
+      } // for
+    this.length++;
+    this.mods++;
+  } // add(int)
+
+  /**
+   * Determine if the list contains val.
+   */
+  public boolean contains(int val)
+  {
+    this.search(val);
+    int block = this.update[0];
+    int index = this.findIndex(block, val);
+    if (index < this.counts[block])
+      return this.vals[block * CAPACITY + index] == val;
+    int next = this.links[link(block, 0)];
+    return (next != FRONT) && (this.firsts[next] == val);
+  } // contains(int)
+
+  /**
+   * Remove one copy of val, if there is one.
+   *
+   * @return true if we removed a copy.
+   */
+  public boolean removeOne(int val)
+  {
+    this.search(val);
+    int block = this.update[0];
+    int start = this.positions[0];
+    int index = this.findIndex(block, val);
+    if (index == this.counts[block])
+      {
+        // The first copy, if any, starts the next block.  The links
+        // that span update[0] at its higher levels span that block too.
+        int at = link(block, 0);
+        start += this.links[at + 1];
+        block = this.links[at];
+        index = 0;
+        if (block == FRONT)
+          return false;
+      } // if
+    if (this.vals[block * CAPACITY + index] != val)
+      return false;
+    this.removeAt(block, index, start);
+    return true;
+  } // removeOne(int)
+
+  /**
+   * Remove every copy of val.
+   */
+  public void remove(int val)
+  {
+    while (this.removeOne(val))
+      ;
+  } // remove(int)
+
+  /**
+   * Get the value at index i, without boxing.
+   *
+   * @throws IndexOutOfBoundsException
+   *   if the index is out of range (index < 0 || index >= length)
+   */
+  public int intAt(int i)
+  {
+    if ((i < 0) || (i >= this.length))
+      throw new IndexOutOfBoundsException("Index: " + i + ", Length: "
+                                          + this.length);
+    int[] links = this.links;
+    int current = FRONT;
+    int pos = 0;
+    for (int level = this.height; level >= 0; level--)
+      {
+        int at;
+        while ((links[at = link(current, level)] != FRONT)
+               && (pos + links[at + 1] <= i))
+          {
+            pos += links[at + 1];
+            current = links[at];
+          } // while
+      } // for
+    return this.vals[current * CAPACITY + i - pos];
+  } // intAt(int)
+
+  /**
+   * Determine the number of values smaller than val.
+   */
+  public int rank(int val)
+  {
+    this.search(val);
+    return this.positions[0] + this.findIndex(this.update[0], val);
+  } // rank(int)
+
+  // +-----------------------+-------------------------------------------
+  // | Methods from Iterable |
+  // +-----------------------+
+
+  /**
+   * Return an iterator that steps through the values of the list from
+   * smallest to largest.
+   */
+  public Iterator<Integer> iterator()
+  {
+    return new Iterator<Integer>()
+      {
+        /**
+         * The block containing the value to be returned by next.
+         */
+        int block = FRONT;
+
+        /**
+         * The index of that value within the block.
+         */
+        int index = 0;
+
+        /**
+         * The index of that value within the list.
+         */
+        int pos = 0;
+
+        /**
+         * The number of modifications at the time this iterator was
+         * created or last updated.
+         */
+        long mods = IntBSkipList.this.mods;
+
+        /**
+         * Whether we can remove the value most recently returned.
+         */
+        boolean canRemove = false;
+
+        void failFast()
+        {
+          if (this.mods != IntBSkipList.this.mods)
+            throw new ConcurrentModificationException();
+        } // failFast()
+
+        public boolean hasNext()
+        {
+          failFast();
+          return this.pos < IntBSkipList.this.length;
+        } // hasNext()
+
+        public Integer next()
+        {
+          if (!this.hasNext())
+            throw new NoSuchElementException();
+          while (this.index >= counts[this.block])
+            {
+              this.block = links[link(this.block, 0)];
+              this.index = 0;
+            } // while
+          this.canRemove = true;
+          this.pos++;
+          return vals[this.block * CAPACITY + this.index++];
+        } // next()
+
+        public void remove()
+        {
+          failFast();
+          if (!this.canRemove)
+            throw new IllegalStateException("Must call next before remove");
+          // Copies of a value may span blocks, so we find the links
+          // that span this one by its index rather than its value
+          int i = --this.pos;
+          locate(i);
+          int last = update[0];
+          int lastIndex = i - positions[0];
+          removeAt(last, lastIndex, positions[0]);
+          // The block may be unlinked, but its links still lead on
+          if (this.block == last)
+            this.index = lastIndex;
+          this.mods = IntBSkipList.this.mods;
+          this.canRemove = false;
+        } // remove()
+      }; // new Iterator<Integer>
+  } // iterator()
+
+  // +------------------------+------------------------------------------
+  // | Methods from SimpleSet |
+  // +------------------------+
+
+  /**
+   * Add a value to the set.
+   *
+   * @post contains(val)
+   * @post For all lav != val, if contains(lav) held before the call
+   *   to add, contains(lav) continues to hold.
+   */
+  public void add(Integer val)
+  {
+    this.add(val.intValue());
+  } // add(Integer)
+
+  /**
+   * Determine if the set contains a particular value.
+   */
+  public boolean contains(Integer val)
+  {
+    return this.contains(val.intValue());
+  } // contains(Integer)
+
+  /**
+   * Remove an element from the set (every copy, if there are several).
+   *
+   * @post !contains(val)
+   * @post For all lav != val, if contains(lav) held before the call
+   *   to remove, contains(lav) continues to hold.
+   */
+  public void remove(Integer val)
+  {
+    this.remove(val.intValue());
+  } // remove(Integer)
+
+  // +--------------------------+----------------------------------------
+  // | Methods from SemiIndexed |
+  // +--------------------------+
+
+  /**
+   * Get the element at index i.
+   *
+   * @throws IndexOutOfBoundsException
+   *   if the index is out of range (index < 0 || index >= length)
+   */
+  public Integer get(int i)
+  {
+    return this.intAt(i);
+  } // get(int)
+
+  /**
+   * Determine the number of elements in the collection.
+   */
+  public int length()
+  {
+    return this.length;
+  } // length()
+} // class IntBSkipList
@@ -0,0 +1,249 @@
+package taojava.util;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Read-only sorted lists of ints stored in Eytzinger (breadth-first)
+ * order.  The value at position k of the array has children at
+ * positions 2k and 2k+1, as in a heap, so a search walks down an
+ * implicit binary search tree.  The first few levels of that tree
+ * share a few cache lines, and the search has no early exit, so each
+ * step depends only on the previous comparison.  We also keep a table
+ * that maps ranks to positions, so get(i) is still constant time.
+ *
+ * Java has no prefetch instruction, so at each step we load the
+ * first of the 16 descendants LOOKAHEAD levels down, which share a
+ * cache line.  Nothing waits for that load, so the processor issues
+ * it and carries on; by the time the search gets there, the line is
+ * on its way.  This only works because the values are ints stored in
+ * the tree itself: with references, every step would also wait on
+ * the element it compares against, which is why EytzingerSortedList,
+ * for any Comparable values, does not look ahead.
+ *
+ * Create one with freeze(slist).  The list cannot be modified.
+ */
+public class IntEytzingerSortedList
+    implements SortedList<Integer>
+{
+  // +-----------+-------------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The number of levels ahead that a search loads.  The 2^LOOKAHEAD
+   * descendants of a node at that depth fill one 64-byte line.
+   */
+  static final int LOOKAHEAD = 4;
+
+  // +--------+----------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The values, in Eytzinger order.  Position 0 is unused.
+   */
+  int[] tree;
+
+  /**
+   * ranks[i] is the position in tree of the ith smallest value.
+   */
+  int[] ranks;
+
+  /**
+   * The number of values.
+   */
+  int length;
+
+  // +--------------+----------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a list containing the first length values of sorted, which
+   * must be in non-decreasing order.
+   */
+  IntEytzingerSortedList(int[] sorted, int length)
+  {
+    this.length = length;
+    this.tree = new int[length + 1];
+    this.ranks = new int[length];
+    this.fill(sorted, 0, 1);
+  } // IntEytzingerSortedList(int[], int)
+
+  /**
+   * Create a read-only copy of slist.
+   */
+  public static IntEytzingerSortedList freeze(SortedList<Integer> slist)
+  {
+    int[] sorted = new int[16];
+    int length = 0;
+    for (Integer val : slist)
+      {
+        if (length == sorted.length)
+          sorted = Arrays.copyOf(sorted, 2 * length);
+        sorted[length++] = val;
+      } // for
+    return new IntEytzingerSortedList(sorted, length);
+  } // freeze(SortedList<Integer>)
+
+  // +-------------------------+-----------------------------------------
+  // | Internal Helper Methods |
+  // +-------------------------+
+
+  /**
+   * Fill in the subtree rooted at position k with sorted values,
+   * starting with the value at index next.
+   *
+   * @return next
+   *   The index of the first value not used in the subtree.
+   */
+  int fill(int[] sorted, int next, int k)
+  {
+    if (k > this.length)
+      return next;
+    next = this.fill(sorted, next, 2 * k);
+    this.tree[k] = sorted[next];
+    this.ranks[next] = k;
+    return this.fill(sorted, next + 1, 2 * k + 1);
+  } // fill(int[], int, int)
+
+  /**
+   * Find the position of the first value greater than or equal to
+   * val, or 0 if there is no such value.
+   */
+  @SuppressWarnings("unused")
+  int lowerBound(int val)
+  {
+    int[] tree = this.tree;
+    int n = this.length;
+    // Positions past ahead have no descendants LOOKAHEAD levels down
+    int ahead = n >> LOOKAHEAD;
+    int k = 1;
+    // The values we touch.  We fold each load into touched so that
+    // the JIT keeps it; a load into a local that is never read again
+    // is dropped, and the search is then no faster than without it.
+    int touched = 0;
+    while (k <= n)
+      {
+        // Touch the line we will need LOOKAHEAD levels down
+        touched ^= tree[(k <= ahead) ? k << LOOKAHEAD : n];
+        k = 2 * k + ((tree[k] < val) ? 1 : 0);
+      } // while
+    // The path went left at the answer and right ever since, so we
+    // drop the trailing ones and the final zero.
+    return k >>> (Integer.numberOfTrailingZeros(~k) + 1);
+  } // lowerBound(int)
+
+  // +-------------------+---------------------------------------------
+  // | Primitive Methods |
+  // +-------------------+
+
+  /**
+   * Determine if the list contains val.
+   */
+  public boolean contains(int val)
+  {
+    int k = this.lowerBound(val);
+    return (k != 0) && (this.tree[k] == val);
+  } // contains(int)
+
+  /**
+   * Get the value at index i, without boxing.
+   *
+   * @throws IndexOutOfBoundsException
+   *   if the index is out of range (index < 0 || index >= length)
+   */
+  public int intAt(int i)
+  {
+    if ((i < 0) || (i >= this.length))
+      throw new IndexOutOfBoundsException("Index: " + i + ", Length: "
+                                          + this.length);
+    return this.tree[this.ranks[i]];
+  } // intAt(int)
+
+  // +-----------------------+-------------------------------------------
+  // | Methods from Iterable |
+  // +-----------------------+
+
+  /**
+   * Return a read-only iterator that steps through the values of the
+   * list from smallest to largest.
+   */
+  public Iterator<Integer> iterator()
+  {
+    return new Iterator<Integer>()
+      {
+        int i = 0;
+
+        public boolean hasNext()
+        {
+          return this.i < IntEytzingerSortedList.this.length;
+        } // hasNext()
+
+        public Integer next()
+        {
+          if (!this.hasNext())
+            throw new NoSuchElementException();
+          return IntEytzingerSortedList.this.intAt(this.i++);
+        } // next()
+
+        public void remove()
+        {
+          throw new UnsupportedOperationException();
+        } // remove()
+      }; // new Iterator<Integer>
+  } // iterator()
+
+  // +------------------------+------------------------------------------
+  // | Methods from SimpleSet |
+  // +------------------------+
+
+  /**
+   * Unsupported: the list is read-only.
+   */
+  public void add(Integer val)
+  {
+    throw new UnsupportedOperationException("IntEytzingerSortedList is read-only");
+  } // add(Integer)
+
+  /**
+   * Determine if the set contains a particular value.
+   */
+  public boolean contains(Integer val)
+  {
+    return this.contains(val.intValue());
+  } // contains(Integer)
+
+  /**
+   * Unsupported: the list is read-only.
+   */
+  public void remove(Integer val)
+  {
+    throw new UnsupportedOperationException("IntEytzingerSortedList is read-only");
+  } // remove(Integer)
+
+  // +--------------------------+----------------------------------------
+  // | Methods from SemiIndexed |
+  // +--------------------------+
+
+  /**
+   * Get the element at index i.
+   *
+   * @throws IndexOutOfBoundsException
+   *   if the index is out of range (index < 0 || index >= length)
+   */
+  public Integer get(int i)
+  {
+    return this.intAt(i);
+  } // get(int)
+
+  /**
+   * Determine the number of elements in the collection.
+   */
+  public int length()
+  {
+    return this.length;
+  } // length()
+} // class IntEytzingerSortedList
@@ -0,0 +1,313 @@
+package taojava.util;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Sorted lists of ints, stored in a plain int array.  Intended for
+ * read-mostly lists: lookups avoid boxing and pointer chasing, while
+ * insertion and removal still shift part of the array.
+ *
+ * Searches narrow the range with a branch-free binary search until
+ * only SCAN candidates remain (about one cache line), then count the
+ * candidates that are smaller than the key.  The counting loop has no
+ * data-dependent branches, so the JIT can turn it into vector compares.
+ */
+public class IntSortedArrayList
+    implements SortedList<Integer>
+{
+  // +-----------+-------------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The number of candidates at which we switch from binary search
+   * to a linear scan.
+   */
+  static final int SCAN = 16;
+
+  // +--------+----------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The values, in increasing order.  Only the first length are used.
+   */
+  int[] data;
+
+  /**
+   * The number of values in the list.
+   */
+  int length;
+
+  /**
+   * The number of modifications to the list.  Used to determine
+   * whether an iterator is valid.
+   */
+  long mods;
+
+  // +--------------+----------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new, empty, sorted list.
+   */
+  public IntSortedArrayList()
+  {
+    this.data = new int[16];
+    this.length = 0;
+    this.mods = 0;
+  } // IntSortedArrayList()
+
+  /**
+   * Create a new sorted list containing the given values (ignoring
+   * duplicates).
+   */
+  public IntSortedArrayList(int[] vals)
+  {
+    this.data = Arrays.copyOf(vals, Math.max(vals.length, 16));
+    Arrays.sort(this.data, 0, vals.length);
+    int len = 0;
+    for (int i = 0; i < vals.length; i++)
+      if ((len == 0) || (this.data[len - 1] != this.data[i]))
+        this.data[len++] = this.data[i];
+    this.length = len;
+    this.mods = 0;
+  } // IntSortedArrayList(int[])
+
+  // +-------------------------+-----------------------------------------
+  // | Internal Helper Methods |
+  // +-------------------------+
+
+  /**
+   * Find the index of val within data[lo .. lo+n).  If val is not
+   * there, returns the index of where val should go.
+   *
+   * @pre The index of val (or where it should go) is in [lo, lo+n].
+   */
+  int findIndex(int val, int lo, int n)
+  {
+    // Invariant: the index we want is in [lo, lo+n]
+    while (n > SCAN)
+      {
+        int half = n >>> 1;
+        lo = (this.data[lo + half] < val) ? lo + half : lo;
+        n -= half;
+      } // while
+    // The index is lo plus the number of candidates smaller than val
+    int smaller = 0;
+    for (int i = lo; i < lo + n; i++)
+      smaller += (this.data[i] < val) ? 1 : 0;
+    return lo + smaller;
+  } // findIndex(int, int, int)
+
+  /**
+   * Find the index of val.  If val is not in the list, returns the
+   * index of where val should go.
+   */
+  int findIndex(int val)
+  {
+    return this.findIndex(val, 0, this.length);
+  } // findIndex(int)
+
+  /**
+   * Remove the value at index i.
+   */
+  void removeAt(int i)
+  {
+    System.arraycopy(this.data, i + 1, this.data, i, this.length - i - 1);
+    this.length--;
+    this.mods++;
+  } // removeAt(int)
+
+  // +-------------------+---------------------------------------------
+  // | Primitive Methods |
+  // +-------------------+
+
+  /**
+   * Add val to the list, unless it is already there.
+   */
+  public void add(int val)
+  {
+    int index = this.findIndex(val);
+    if ((index < this.length) && (this.data[index] == val))
+      return;
+    if (this.length == this.data.length)
+      this.data = Arrays.copyOf(this.data, 2 * this.data.length);
+    System.arraycopy(this.data, index, this.data, index + 1,
+                     this.length - index);
+    this.data[index] = val;
+    this.length++;
+    this.mods++;
+  } // add(int)
+
+  /**
+   * Determine if the list contains val.
+   */
+  public boolean contains(int val)
+  {
+    int index = this.findIndex(val);
+    return (index < this.length) && (this.data[index] == val);
+  } // contains(int)
+
+  /**
+   * Determine if the list contains all of vals.  Probes are made in
+   * increasing order, and each probe only searches the part of the
+   * list after the previous one, so a batch of k probes costs about
+   * k log(n/k) comparisons rather than k log n.
+   */
+  public boolean containsAll(int[] vals)
+  {
+    int[] probes = vals.clone();
+    Arrays.sort(probes);
+    int lo = 0;
+    for (int val : probes)
+      {
+        // Gallop to find a range that must contain val
+        int step = 1;
+        while ((lo + step < this.length) && (this.data[lo + step] < val))
+          step <<= 1;
+        int n = Math.min(step, this.length - lo);
+        lo = this.findIndex(val, lo, n);
+        if ((lo >= this.length) || (this.data[lo] != val))
+          return false;
+      } // for
+    return true;
+  } // containsAll(int[])
+
+  /**
+   * Remove val from the list, if it is there.
+   */
+  public void remove(int val)
+  {
+    int index = this.findIndex(val);
+    if ((index < this.length) && (this.data[index] == val))
+      this.removeAt(index);
+  } // remove(int)
+
+  /**
+   * Get the value at index i, without boxing.
+   *
+   * @throws IndexOutOfBoundsException
+   *   if the index is out of range (index < 0 || index >= length)
+   */
+  public int intAt(int i)
+  {
+    if ((i < 0) || (i >= this.length))
+      throw new IndexOutOfBoundsException("Index: " + i + ", Length: "
+                                          + this.length);
+    return this.data[i];
+  } // intAt(int)
+
+  // +-----------------------+-------------------------------------------
+  // | Methods from Iterable |
+  // +-----------------------+
+
+  /**
+   * Return an iterator that steps through the values of the list from
+   * smallest to largest.
+   */
+  public Iterator<Integer> iterator()
+  {
+    return new Iterator<Integer>()
+      {
+        int pos = 0;
+
+        long mods = IntSortedArrayList.this.mods;
+
+        boolean canRemove = false;
+
+        void failFast()
+        {
+          if (this.mods != IntSortedArrayList.this.mods)
+            throw new ConcurrentModificationException();
+        } // failFast()
+
+        public boolean hasNext()
+        {
+          failFast();
+          return this.pos < IntSortedArrayList.this.length;
+        } // hasNext()
+
+        public Integer next()
+        {
+          if (!this.hasNext())
+            throw new NoSuchElementException();
+          this.canRemove = true;
+          return IntSortedArrayList.this.data[this.pos++];
+        } // next()
+
+        public void remove()
+        {
+          failFast();
+          if (!this.canRemove)
+            throw new IllegalStateException("Must call next before remove");
+          IntSortedArrayList.this.removeAt(--this.pos);
+          this.mods = IntSortedArrayList.this.mods;
+          this.canRemove = false;
+        } // remove()
+      }; // new Iterator<Integer>
+  } // iterator()
+
+  // +------------------------+------------------------------------------
+  // | Methods from SimpleSet |
+  // +------------------------+
+
+  /**
+   * Add a value to the set.
+   *
+   * @post contains(val)
+   * @post For all lav != val, if contains(lav) held before the call
+   *   to add, contains(lav) continues to hold.
+   */
+  public void add(Integer val)
+  {
+    this.add(val.intValue());
+  } // add(Integer)
+
+  /**
+   * Determine if the set contains a particular value.
+   */
+  public boolean contains(Integer val)
+  {
+    return this.contains(val.intValue());
+  } // contains(Integer)
+
+  /**
+   * Remove an element from the set.
+   *
+   * @post !contains(val)
+   * @post For all lav != val, if contains(lav) held before the call
+   *   to remove, contains(lav) continues to hold.
+   */
+  public void remove(Integer val)
+  {
+    this.remove(val.intValue());
+  } // remove(Integer)
+
+  // +--------------------------+----------------------------------------
+  // | Methods from SemiIndexed |
+  // +--------------------------+
+
+  /**
+   * Get the element at index i.
+   *
+   * @throws IndexOutOfBoundsException
+   *   if the index is out of range (index < 0 || index >= length)
+   */
+  public Integer get(int i)
+  {
+    return this.intAt(i);
+  } // get(int)
+
+  /**
+   * Determine the number of elements in the collection.
+   */
+  public int length()
+  {
+    return this.length;
+  } // length()
+} // class IntSortedArrayList
@@ -0,0 +1,212 @@
+package taojava.util;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Order statistics over a sliding window of a stream of ints, as in
+ * WindowedOrderStatistics, but without boxing.  We keep the window in
+ * arrival order in a ring of ints (and times), and in an IntBSkipList,
+ * so the values and the links that order them are packed into a few
+ * arrays rather than spread over a node and an Integer apiece.  Adds,
+ * evictions, quantiles, and ranks still take O(log n) expected time,
+ * but each follows far fewer references, which is most of the cost
+ * once the window outgrows the cache.
+ */
+public class IntWindowedOrderStatistics
+{
+  // +--------+----------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The values in the window, in order.
+   */
+  IntBSkipList sorted;
+
+  /**
+   * The values in the window, oldest first, starting at head and
+   * wrapping around.
+   */
+  int[] vals;
+
+  /**
+   * The times at which the values in vals arrived, or null if every
+   * value so far arrived at time 0.  Windows bounded only by capacity
+   * never need times, and the ring streams through the cache on every
+   * add, so we leave it out until a time arrives.
+   */
+  long[] times;
+
+  /**
+   * The index in vals of the oldest value.
+   */
+  int head;
+
+  /**
+   * The number of values in the window.
+   */
+  int size;
+
+  /**
+   * The most values the window may hold, or 0 if there is no limit.
+   */
+  int capacity;
+
+  // +--------------+----------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create an empty window that holds the most recent capacity values.
+   * With a capacity of 0, the window holds values until they are
+   * evicted with evictBefore.
+   *
+   * @throws IllegalArgumentException
+   *   if capacity < 0
+   */
+  public IntWindowedOrderStatistics(int capacity)
+  {
+    if (capacity < 0)
+      throw new IllegalArgumentException("Invalid capacity: " + capacity);
+    this.sorted = new IntBSkipList();
+    this.vals = new int[(capacity > 0) ? capacity : 16];
+    this.times = null;
+    this.head = 0;
+    this.size = 0;
+    this.capacity = capacity;
+  } // IntWindowedOrderStatistics(int)
+
+  // +-------------------------+-----------------------------------------
+  // | Internal Helper Methods |
+  // +-------------------------+
+
+  /**
+   * Evict the oldest value.
+   */
+  void evictOldest()
+  {
+    // Copies of a value are interchangeable, so any one will do
+    this.sorted.removeOne(this.vals[this.head]);
+    if (++this.head == this.vals.length)
+      this.head = 0;
+    this.size--;
+  } // evictOldest()
+
+  /**
+   * Double the room in the ring, moving the values to the start.
+   */
+  void grow()
+  {
+    int[] newVals = new int[2 * this.vals.length];
+    int first = this.vals.length - this.head;
+    System.arraycopy(this.vals, this.head, newVals, 0, first);
+    System.arraycopy(this.vals, 0, newVals, first, this.head);
+    if (this.times != null)
+      {
+        long[] newTimes = new long[newVals.length];
+        System.arraycopy(this.times, this.head, newTimes, 0, first);
+        System.arraycopy(this.times, 0, newTimes, first, this.head);
+        this.times = newTimes;
+      } // if
+    this.vals = newVals;
+    this.head = 0;
+  } // grow()
+
+  // +---------+---------------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Add a value to the window, evicting the oldest if the window is
+   * full.
+   */
+  public void add(int val)
+  {
+    this.add(0, val);
+  } // add(int)
+
+  /**
+   * Add a value that arrived at time, which should be no earlier than
+   * the time of any value already in the window, evicting the oldest
+   * if the window is full.
+   */
+  public void add(long time, int val)
+  {
+    if ((this.capacity > 0) && (this.size >= this.capacity))
+      this.evictOldest();
+    if (this.size == this.vals.length)
+      this.grow();
+    int tail = this.head + this.size;
+    if (tail >= this.vals.length)
+      tail -= this.vals.length;
+    this.vals[tail] = val;
+    if ((time != 0) && (this.times == null))
+      this.times = new long[this.vals.length];
+    if (this.times != null)
+      this.times[tail] = time;
+    this.size++;
+    this.sorted.add(val);
+  } // add(long, int)
+
+  /**
+   * Evict every value that arrived before time.
+   *
+   * @return the number of values evicted.
+   */
+  public int evictBefore(long time)
+  {
+    int evicted = 0;
+    while ((this.size > 0)
+           && (((this.times == null) ? 0 : this.times[this.head]) < time))
+      {
+        this.evictOldest();
+        evicted++;
+      } // while
+    return evicted;
+  } // evictBefore(long)
+
+  /**
+   * Get the number of values in the window.
+   */
+  public int size()
+  {
+    return this.size;
+  } // size()
+
+  /**
+   * Get the value of quantile q (between 0 and 1) of the window: the
+   * smallest value at least a fraction q of the window is no larger
+   * than (the nearest-rank definition).
+   *
+   * @throws NoSuchElementException
+   *   if the window is empty
+   */
+  public int quantile(double q)
+  {
+    int n = this.size;
+    if (n == 0)
+      throw new NoSuchElementException("Empty window");
+    int i = (int) Math.ceil(q * n) - 1;
+    return this.sorted.intAt(Math.max(0, Math.min(n - 1, i)));
+  } // quantile(double)
+
+  /**
+   * Get the median of the window (the lower median, for an even
+   * number of values).
+   *
+   * @throws NoSuchElementException
+   *   if the window is empty
+   */
+  public int median()
+  {
+    return this.quantile(0.5);
+  } // median()
+
+  /**
+   * Determine the number of values in the window smaller than val.
+   */
+  public int rank(int val)
+  {
+    return this.sorted.rank(val);
+  } // rank(int)
+} // class IntWindowedOrderStatistics
@@ -0,0 +1,492 @@
+package taojava.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Interval skip lists, after Hanson.  We keep the endpoints of a set
+ * of closed intervals in a skip list and mark each interval on the
+ * links it covers, so that we can find the intervals containing a
+ * point (stab it) in O(log n + k) expected time for k answers.
+ *
+ * An interval [lo, hi] is marked on a staircase of links from lo to
+ * hi: from each node, the highest link that stays within the interval.
+ * That uses O(log n) links per interval, and a search for a point
+ * crosses the one link of each staircase that spans the point, so
+ * collecting the markers on the links a search crosses collects
+ * exactly the intervals containing the point.  Each node also records
+ * the intervals whose staircases pass through it, for points that
+ * land on an endpoint.
+ *
+ * When a node is added or removed, only the staircases that use the
+ * links it splits or joins can change, and only between the nodes
+ * whose links change, so we move just those markers.
+ */
+public class IntervalSkipList<T extends Comparable<T>>
+{
+  // +-----------+-------------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The highest level a node can have.
+   */
+  static final int MAX_LEVEL = 20;
+
+  // +------------------+------------------------------------------------
+  // | Internal Classes |
+  // +------------------+
+
+  /**
+   * Closed intervals.  Each call to add makes a distinct interval, even
+   * if another has the same endpoints.
+   */
+  public static class Interval<T>
+  {
+    /**
+     * The smallest value in the interval.
+     */
+    public final T lo;
+
+    /**
+     * The largest value in the interval.
+     */
+    public final T hi;
+
+    Interval(T lo, T hi)
+    {
+      this.lo = lo;
+      this.hi = hi;
+    } // Interval(T, T)
+
+    public String toString()
+    {
+      return "[" + this.lo + ", " + this.hi + "]";
+    } // toString()
+  } // class Interval<T>
+
+  /**
+   * Steps of a staircase: a node and the level of the link we take
+   * from it.
+   */
+  class Step
+  {
+    Node node;
+
+    int level;
+
+    Step(Node node, int level)
+    {
+      this.node = node;
+      this.level = level;
+    } // Step(Node, int)
+
+    boolean same(Step other)
+    {
+      return (this.node == other.node) && (this.level == other.level);
+    } // same(Step)
+  } // class Step
+
+  /**
+   * Nodes in the list, one per distinct endpoint.
+   */
+  class Node
+  {
+    /**
+     * The endpoint, or null for front and back.
+     */
+    T key;
+
+    /**
+     * The next node at each level.
+     */
+    Node[] next;
+
+    /**
+     * The intervals marked on the link at each level (null if there
+     * have never been any).
+     */
+    HashSet<Interval<T>>[] markers;
+
+    /**
+     * The intervals whose staircases pass through this node.
+     */
+    HashSet<Interval<T>> eqMarkers;
+
+    /**
+     * The intervals that start at this node.
+     */
+    ArrayList<Interval<T>> starting;
+
+    /**
+     * The number of interval endpoints at this node.
+     */
+    int owners;
+
+    @SuppressWarnings("unchecked")
+    Node(T key, int level)
+    {
+      this.key = key;
+      this.next = (Node[]) new IntervalSkipList.Node[level + 1];
+      this.markers = (HashSet<Interval<T>>[]) new HashSet[level + 1];
+      this.eqMarkers = new HashSet<Interval<T>>();
+      this.starting = new ArrayList<Interval<T>>();
+    } // Node(T, int)
+
+    /**
+     * Get the highest level of this node.
+     */
+    int top()
+    {
+      return this.next.length - 1;
+    } // top()
+
+    /**
+     * Add interval to the markers on the link at level.
+     */
+    void mark(int level, Interval<T> interval)
+    {
+      if (this.markers[level] == null)
+        this.markers[level] = new HashSet<Interval<T>>();
+      this.markers[level].add(interval);
+    } // mark(int, Interval<T>)
+
+    /**
+     * Remove interval from the markers on the link at level.
+     */
+    void unmark(int level, Interval<T> interval)
+    {
+      this.markers[level].remove(interval);
+    } // unmark(int, Interval<T>)
+  } // class Node
+
+  // +--------+----------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The dummy node at the front of the list.  It has every level.
+   */
+  Node front;
+
+  /**
+   * The dummy node at the back of the list.
+   */
+  Node back;
+
+  /**
+   * The highest level of any node we have added.
+   */
+  int height;
+
+  /**
+   * The number of intervals.
+   */
+  int size;
+
+  /**
+   * The source of node heights.
+   */
+  Random random;
+
+  // +--------------+----------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create an empty list.
+   */
+  public IntervalSkipList()
+  {
+    this.back = new Node(null, -1);
+    this.front = new Node(null, MAX_LEVEL);
+    for (int level = 0; level <= MAX_LEVEL; level++)
+      this.front.next[level] = this.back;
+    this.height = 0;
+    this.size = 0;
+    this.random = new Random();
+  } // IntervalSkipList()
+
+  // +-------------------------+-----------------------------------------
+  // | Internal Helper Methods |
+  // +-------------------------+
+
+  /**
+   * Pick a random height for a new node.
+   */
+  int randomHeight()
+  {
+    int height = 0;
+    while ((height < MAX_LEVEL) && this.random.nextBoolean())
+      height++;
+    return height;
+  } // randomHeight()
+
+  /**
+   * Determine whether node comes before key.
+   */
+  boolean before(Node node, T key)
+  {
+    return (node != this.back) && (node.key.compareTo(key) < 0);
+  } // before(Node, T)
+
+  /**
+   * Find the last node before key at every level up to height.
+   */
+  @SuppressWarnings("unchecked")
+  Node[] predecessors(T key)
+  {
+    Node[] update = (Node[]) new IntervalSkipList.Node[this.height + 1];
+    Node node = this.front;
+    for (int level = this.height; level >= 0; level--)
+      {
+        while (this.before(node.next[level], key))
+          node = node.next[level];
+        update[level] = node;
+      } // for
+    return update;
+  } // predecessors(T)
+
+  /**
+   * Find the node for key, or null if there is none.
+   */
+  Node find(T key)
+  {
+    Node node = this.predecessors(key)[0].next[0];
+    return ((node != this.back) && (node.key.compareTo(key) == 0)) ? node
+                                                                    : null;
+  } // find(T)
+
+  /**
+   * Find the staircase of interval: the nodes from lo to hi, each with
+   * the level of the link we take from it (or -1 for the node at hi).
+   */
+  ArrayList<Step> staircase(Interval<T> interval)
+  {
+    ArrayList<Step> steps = new ArrayList<Step>();
+    Node node = this.find(interval.lo);
+    while (node.key.compareTo(interval.hi) != 0)
+      {
+        // Level 0 always stays within the interval, since hi is a node
+        int level = node.top();
+        while ((node.next[level] == this.back)
+               || (node.next[level].key.compareTo(interval.hi) > 0))
+          level--;
+        steps.add(new Step(node, level));
+        node = node.next[level];
+      } // while
+    steps.add(new Step(node, -1));
+    return steps;
+  } // staircase(Interval<T>)
+
+  /**
+   * Mark (or, if placing is false, unmark) interval on steps[from]
+   * through steps[to - 1].
+   */
+  void mark(Interval<T> interval, ArrayList<Step> steps, int from, int to,
+            boolean placing)
+  {
+    for (int i = from; i < to; i++)
+      {
+        Step step = steps.get(i);
+        if (placing)
+          step.node.eqMarkers.add(interval);
+        else
+          step.node.eqMarkers.remove(interval);
+        if (step.level < 0)
+          continue;
+        if (placing)
+          step.node.mark(step.level, interval);
+        else
+          step.node.unmark(step.level, interval);
+      } // for
+  } // mark(Interval<T>, ArrayList<Step>, int, int, boolean)
+
+  /**
+   * Move the markers of interval from its old staircase to its current
+   * one.  The two share a prefix and a suffix, which we leave alone.
+   */
+  void restaircase(Interval<T> interval, ArrayList<Step> old)
+  {
+    ArrayList<Step> now = this.staircase(interval);
+    int prefix = 0;
+    while ((prefix < old.size()) && (prefix < now.size())
+           && old.get(prefix).same(now.get(prefix)))
+      prefix++;
+    int oldEnd = old.size();
+    int nowEnd = now.size();
+    while ((oldEnd > prefix) && (nowEnd > prefix)
+           && old.get(oldEnd - 1).same(now.get(nowEnd - 1)))
+      {
+        oldEnd--;
+        nowEnd--;
+      } // while
+    // Unmark first, so nodes on both staircases keep their eqMarkers
+    this.mark(interval, old, prefix, oldEnd, false);
+    this.mark(interval, now, prefix, nowEnd, true);
+  } // restaircase(Interval<T>, ArrayList<Step>)
+
+  /**
+   * Find the node for key, adding it if there is none.
+   */
+  Node insert(T key)
+  {
+    Node[] update = this.predecessors(key);
+    Node node = update[0].next[0];
+    if ((node != this.back) && (node.key.compareTo(key) == 0))
+      return node;
+
+    int top = this.randomHeight();
+    if (top > this.height)
+      {
+        Node[] higher = Arrays.copyOf(update, top + 1);
+        for (int level = this.height + 1; level <= top; level++)
+          higher[level] = this.front;
+        update = higher;
+        this.height = top;
+      } // if
+
+    // The staircases that cross the links we split are the only ones
+    // that can change
+    HashMap<Interval<T>, ArrayList<Step>> moved =
+        new HashMap<Interval<T>, ArrayList<Step>>();
+    for (int level = 0; level <= top; level++)
+      if (update[level].markers[level] != null)
+        for (Interval<T> interval : update[level].markers[level])
+          if (!moved.containsKey(interval))
+            moved.put(interval, this.staircase(interval));
+
+    node = new Node(key, top);
+    for (int level = 0; level <= top; level++)
+      {
+        node.next[level] = update[level].next[level];
+        update[level].next[level] = node;
+      } // for
+
+    for (Interval<T> interval : moved.keySet())
+      this.restaircase(interval, moved.get(interval));
+    return node;
+  } // insert(T)
+
+  /**
+   * Remove node, which no interval ends at any longer.
+   */
+  void delete(Node node)
+  {
+    Node[] update = this.predecessors(node.key);
+
+    // The staircases that pass through node are the only ones that
+    // can change
+    HashMap<Interval<T>, ArrayList<Step>> moved =
+        new HashMap<Interval<T>, ArrayList<Step>>();
+    for (Interval<T> interval : node.eqMarkers)
+      moved.put(interval, this.staircase(interval));
+
+    for (int level = 0; level <= node.top(); level++)
+      update[level].next[level] = node.next[level];
+
+    for (Interval<T> interval : moved.keySet())
+      this.restaircase(interval, moved.get(interval));
+  } // delete(Node)
+
+  // +---------+---------------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Add the interval [lo, hi].
+   *
+   * @return the interval, for use with remove.
+   * @throws IllegalArgumentException
+   *   if lo > hi
+   */
+  public Interval<T> add(T lo, T hi)
+  {
+    if (lo.compareTo(hi) > 0)
+      throw new IllegalArgumentException("Invalid interval: [" + lo + ", "
+                                         + hi + "]");
+    Interval<T> interval = new Interval<T>(lo, hi);
+    Node start = this.insert(lo);
+    start.owners++;
+    start.starting.add(interval);
+    this.insert(hi).owners++;
+    ArrayList<Step> steps = this.staircase(interval);
+    this.mark(interval, steps, 0, steps.size(), true);
+    this.size++;
+    return interval;
+  } // add(T, T)
+
+  /**
+   * Remove an interval returned by add.  Does nothing if the interval
+   * has already been removed.
+   */
+  public void remove(Interval<T> interval)
+  {
+    Node start = this.find(interval.lo);
+    if ((start == null) || !start.starting.remove(interval))
+      return;
+    ArrayList<Step> steps = this.staircase(interval);
+    this.mark(interval, steps, 0, steps.size(), false);
+    this.size--;
+    if (--start.owners == 0)
+      this.delete(start);
+    Node end = this.find(interval.hi);
+    if (--end.owners == 0)
+      this.delete(end);
+  } // remove(Interval<T>)
+
+  /**
+   * Find the intervals that contain point.
+   */
+  public List<Interval<T>> stab(T point)
+  {
+    ArrayList<Interval<T>> result = new ArrayList<Interval<T>>();
+    Node node = this.front;
+    for (int level = this.height; level >= 0; level--)
+      {
+        while (this.before(node.next[level], point))
+          node = node.next[level];
+        Node next = node.next[level];
+        if ((next != this.back) && (next.key.compareTo(point) == 0))
+          {
+            // Staircases that span point at lower levels pass through next
+            result.addAll(next.eqMarkers);
+            return result;
+          } // if
+        // The link from node spans point
+        if (node.markers[level] != null)
+          result.addAll(node.markers[level]);
+      } // for
+    return result;
+  } // stab(T)
+
+  /**
+   * Find the intervals that overlap [lo, hi]: those that contain lo,
+   * and those that start after lo but no later than hi.
+   */
+  public List<Interval<T>> overlapping(T lo, T hi)
+  {
+    List<Interval<T>> result = this.stab(lo);
+    Node node = this.predecessors(lo)[0].next[0];
+    if ((node != this.back) && (node.key.compareTo(lo) == 0))
+      node = node.next[0];
+    while ((node != this.back) && (node.key.compareTo(hi) <= 0))
+      {
+        result.addAll(node.starting);
+        node = node.next[0];
+      } // while
+    return result;
+  } // overlapping(T, T)
+
+  /**
+   * Get the number of intervals.
+   */
+  public int size()
+  {
+    return this.size;
+  } // size()
+} // class IntervalSkipList<T>
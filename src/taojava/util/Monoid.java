@@ -0,0 +1,26 @@
+package taojava.util;
+
+/**
+ * Ways of summarizing runs of values: an associative combine with an
+ * identity, and a way to summarize a single value.  Combine need not
+ * be commutative; left summarizes values that come before those
+ * summarized by right.
+ */
+public interface Monoid<T, A>
+{
+  /**
+   * Get the summary of no values.
+   */
+  public A identity();
+
+  /**
+   * Get the summary of a single value.
+   */
+  public A lift(T val);
+
+  /**
+   * Get the summary of the values summarized by left, followed by
+   * those summarized by right.
+   */
+  public A combine(A left, A right);
+} // interface Monoid<T, A>
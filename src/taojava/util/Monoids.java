@@ -0,0 +1,111 @@
+package taojava.util;
+
+/**
+ * Common monoids for AugmentedSkipList.
+ */
+public class Monoids
+{
+  /**
+   * Count the values.
+   */
+  public static <T> Monoid<T, Integer> count()
+  {
+    return new Monoid<T, Integer>()
+      {
+        public Integer identity()
+        {
+          return 0;
+        } // identity()
+
+        public Integer lift(T val)
+        {
+          return 1;
+        } // lift(T)
+
+        public Integer combine(Integer left, Integer right)
+        {
+          return left + right;
+        } // combine(Integer, Integer)
+      }; // new Monoid<T, Integer>
+  } // count()
+
+  /**
+   * Sum the values, as longs.
+   */
+  public static <T extends Number> Monoid<T, Long> sum()
+  {
+    return new Monoid<T, Long>()
+      {
+        public Long identity()
+        {
+          return 0L;
+        } // identity()
+
+        public Long lift(T val)
+        {
+          return val.longValue();
+        } // lift(T)
+
+        public Long combine(Long left, Long right)
+        {
+          return left + right;
+        } // combine(Long, Long)
+      }; // new Monoid<T, Long>
+  } // sum()
+
+  /**
+   * Find the smallest value, or null if there are none.
+   */
+  public static <T extends Comparable<T>> Monoid<T, T> min()
+  {
+    return new Monoid<T, T>()
+      {
+        public T identity()
+        {
+          return null;
+        } // identity()
+
+        public T lift(T val)
+        {
+          return val;
+        } // lift(T)
+
+        public T combine(T left, T right)
+        {
+          if (left == null)
+            return right;
+          if (right == null)
+            return left;
+          return (right.compareTo(left) < 0) ? right : left;
+        } // combine(T, T)
+      }; // new Monoid<T, T>
+  } // min()
+
+  /**
+   * Find the largest value, or null if there are none.
+   */
+  public static <T extends Comparable<T>> Monoid<T, T> max()
+  {
+    return new Monoid<T, T>()
+      {
+        public T identity()
+        {
+          return null;
+        } // identity()
+
+        public T lift(T val)
+        {
+          return val;
+        } // lift(T)
+
+        public T combine(T left, T right)
+        {
+          if (left == null)
+            return right;
+          if (right == null)
+            return left;
+          return (right.compareTo(left) > 0) ? right : left;
+        } // combine(T, T)
+      }; // new Monoid<T, T>
+  } // max()
+} // class Monoids
@@ -0,0 +1,223 @@
+package taojava.util;
+
+import java.util.ArrayList;
+
+/**
+ * Scalable Bloom filters.  A Bloom filter answers "might this value
+ * have been added?" with no false negatives and a small rate of false
+ * positives.  A plain filter must be sized in advance; a scalable one
+ * is a series of plain filters, each twice the capacity of the last,
+ * with false-positive rates that shrink geometrically so that their
+ * sum stays below the target rate.
+ *
+ * Values are hashed with hashCode, so two values that compare as equal
+ * must have the same hash code.
+ */
+public class ScalableBloomFilter<T>
+{
+  // +-----------+-------------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The ratio between the false-positive rates of successive stages.
+   */
+  static final double TIGHTENING = 0.5;
+
+  // +------------------+------------------------------------------------
+  // | Internal Classes |
+  // +------------------+
+
+  /**
+   * A plain Bloom filter with a fixed capacity.
+   */
+  static class Stage
+  {
+    /**
+     * The bits.
+     */
+    long[] bits;
+
+    /**
+     * The number of bits.
+     */
+    int m;
+
+    /**
+     * The number of hash functions.
+     */
+    int k;
+
+    /**
+     * The number of values we can add before exceeding our rate.
+     */
+    int capacity;
+
+    /**
+     * The number of values added.
+     */
+    int count;
+
+    /**
+     * Create a stage for capacity values at false-positive rate fpp.
+     */
+    Stage(int capacity, double fpp)
+    {
+      double ln2 = Math.log(2);
+      this.m = (int) Math.max(64, Math.ceil(-capacity * Math.log(fpp)
+                                            / (ln2 * ln2)));
+      this.k = (int) Math.max(1, Math.round(((double) this.m / capacity)
+                                            * ln2));
+      this.bits = new long[(this.m + 63) >>> 6];
+      this.capacity = capacity;
+      this.count = 0;
+    } // Stage(int, double)
+
+    /**
+     * Set the k bits for the hash pair (h1, h2).
+     */
+    void set(long h1, long h2)
+    {
+      long h = h1;
+      for (int i = 0; i < this.k; i++)
+        {
+          int bit = (int) ((h >>> 1) % this.m);
+          this.bits[bit >>> 6] |= 1L << bit;
+          h += h2;
+        } // for
+      this.count++;
+    } // set(long, long)
+
+    /**
+     * Determine if all k bits for the hash pair (h1, h2) are set.
+     */
+    boolean test(long h1, long h2)
+    {
+      long h = h1;
+      for (int i = 0; i < this.k; i++)
+        {
+          int bit = (int) ((h >>> 1) % this.m);
+          if ((this.bits[bit >>> 6] & (1L << bit)) == 0)
+            return false;
+          h += h2;
+        } // for
+      return true;
+    } // test(long, long)
+  } // class Stage
+
+  // +--------+----------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The stages, oldest first.  New values go in the last one.
+   */
+  ArrayList<Stage> stages;
+
+  /**
+   * The capacity of the first stage.
+   */
+  int initialCapacity;
+
+  /**
+   * The target false-positive rate for the whole filter.
+   */
+  double fpp;
+
+  // +--------------+----------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create an empty filter whose first stage holds initialCapacity
+   * values, with an overall false-positive rate of about fpp.
+   */
+  public ScalableBloomFilter(int initialCapacity, double fpp)
+  {
+    if ((fpp <= 0) || (fpp >= 1))
+      throw new IllegalArgumentException("Invalid false-positive rate: "
+                                         + fpp);
+    this.initialCapacity = Math.max(1, initialCapacity);
+    this.fpp = fpp;
+    this.clear();
+  } // ScalableBloomFilter(int, double)
+
+  // +-------------------------+-----------------------------------------
+  // | Internal Helper Methods |
+  // +-------------------------+
+
+  /**
+   * Spread the bits of a hash code (the finalizer from MurmurHash3).
+   */
+  static long mix(long h)
+  {
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  } // mix(long)
+
+  // +---------+---------------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Note that val has been added.
+   *
+   * @post mightContain(val)
+   */
+  public void add(T val)
+  {
+    long h1 = mix(val.hashCode());
+    long h2 = mix(h1) | 1;
+    for (Stage stage : this.stages)
+      if (stage.test(h1, h2))
+        return;
+    Stage last = this.stages.get(this.stages.size() - 1);
+    if (last.count >= last.capacity)
+      {
+        last = new Stage(2 * last.capacity,
+                         this.fpp * (1 - TIGHTENING)
+                         * Math.pow(TIGHTENING, this.stages.size()));
+        this.stages.add(last);
+      } // if the last stage is full
+    last.set(h1, h2);
+  } // add(T)
+
+  /**
+   * Determine whether val might have been added.  If this returns
+   * false, val has certainly not been added since the last clear.
+   */
+  public boolean mightContain(T val)
+  {
+    long h1 = mix(val.hashCode());
+    long h2 = mix(h1) | 1;
+    for (Stage stage : this.stages)
+      if (stage.test(h1, h2))
+        return true;
+    return false;
+  } // mightContain(T)
+
+  /**
+   * Forget every value.
+   */
+  public void clear()
+  {
+    this.stages = new ArrayList<Stage>();
+    this.stages.add(new Stage(this.initialCapacity,
+                              this.fpp * (1 - TIGHTENING)));
+  } // clear()
+
+  /**
+   * Determine how many bits the filter uses.
+   */
+  public long bits()
+  {
+    long total = 0;
+    for (Stage stage : this.stages)
+      total += stage.m;
+    return total;
+  } // bits()
+} // class ScalableBloomFilter<T>
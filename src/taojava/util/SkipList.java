@@ -1,5 +1,7 @@
 package taojava.util;
 
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
@@ -15,6 +17,15 @@ import java.util.Random;
 public class SkipList<T extends Comparable<T>>
     implements SortedList<T>
 {
+  // +-----------+-------------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The most tombstones that one add or remove unlinks.
+   */
+  public static final int COMPACTION_STEP = 4;
+
   // +--------+----------------------------------------------------------
   // | Fields |
   // +--------+
@@ -52,10 +63,75 @@ public class SkipList<T extends Comparable<T>>
    */
   double probability = .5;
 
+  /**
+   * A cache of recent answers from contains, or null if we are not
+   * caching.
+   */
+  ClockCache<T> cache;
+
+  /**
+   * Whether contains promotes popular nodes and demotes cold ones.
+   */
+  boolean selfAdjusting;
+
+  /**
+   * The current epoch.  Hit counts halve each epoch.
+   */
+  int epoch;
+
+  /**
+   * The number of calls to contains in the current epoch.
+   */
+  int epochCalls;
+
+  /**
+   * The most values the list may hold, or 0 if there is no limit.
+   */
+  int capacity;
+
+  /**
+   * Which end of a full list gives up a value to make room.
+   */
+  Eviction eviction;
+
+  /**
+   * The fraction of dead nodes at which we compact the list, or 0 if
+   * remove unlinks nodes at once.
+   */
+  double tombstoneRatio;
+
+  /**
+   * The number of dead nodes still linked into the list.
+   */
+  int tombstones;
+
+  /**
+   * The dead nodes, in the order they died, waiting to be unlinked.
+   * Some may have been unlinked since, by pollFirst, pollLast, or
+   * removeRange; the rest are exactly the tombstones.
+   */
+  ArrayDeque<Node> graves = new ArrayDeque<Node>();
+
   // +------------------+------------------------------------------------
   // | Internal Classes |
   // +------------------+
 
+  /**
+   * The ends of a bounded list from which values may be evicted.
+   */
+  public enum Eviction
+  {
+    /**
+     * Evict the smallest value, keeping the largest (for "top k").
+     */
+    SMALLEST,
+
+    /**
+     * Evict the largest value, keeping the smallest (for "bottom k").
+     */
+    LARGEST
+  }// enum Eviction
+
   /**
    * Nodes for skip lists.
    */
@@ -76,6 +152,40 @@ public class SkipList<T extends Comparable<T>>
      */
     Node[] nodeList;
 
+    /**
+     * The node before this one on level 0 (front, for the first node).
+     * Lets us find the last node without a search.
+     */
+    Node prev;
+
+    /**
+     * The level the node was given when it was created.  Self-adjusting
+     * lists never demote a node below this level.
+     */
+    int baseLevel;
+
+    /**
+     * The number of times contains has found this node, halved each
+     * epoch.
+     */
+    int hits;
+
+    /**
+     * The epoch in which hits was last brought up to date.
+     */
+    int epoch;
+
+    /**
+     * Whether the value has been removed, though the node is still
+     * linked into the list.
+     */
+    boolean dead;
+
+    /**
+     * Whether a dead node has since been unlinked from the list.
+     */
+    boolean unlinked;
+
     // +--------------+----------------------------------------------------
     // | Constructors |
     // +--------------+
@@ -88,8 +198,39 @@ public class SkipList<T extends Comparable<T>>
     {
       this.val = val;
       this.nodeList = nodeList;
+      if (nodeList != null)
+        this.baseLevel = nodeList.length - 1;
+      this.epoch = SkipList.this.epoch;
     }// Node(T val, Node[] nodeList)
 
+    // +---------+-----------------------------------------------------
+    // | Methods |
+    // +---------+
+
+    /**
+     * Halve hits once for each epoch since it was last brought up to
+     * date.
+     */
+    void decay()
+    {
+      int elapsed = SkipList.this.epoch - this.epoch;
+      if (elapsed > 0)
+        {
+          this.hits = (elapsed >= 31) ? 0 : this.hits >>> elapsed;
+          this.epoch = SkipList.this.epoch;
+        }// if
+    }// decay()
+
+    /**
+     * Determine the level this node has earned: its base level, plus
+     * one for each doubling of its recent hits.
+     */
+    int earnedLevel()
+    {
+      int bonus = 32 - Integer.numberOfLeadingZeros(this.hits >>> 1);
+      return Math.min(maxLevel, this.baseLevel + bonus);
+    }// earnedLevel()
+
   }// class Node
 
   // +--------------+----------------------------------------------------
@@ -130,8 +271,26 @@ public class SkipList<T extends Comparable<T>>
      *  pointing to last
      */
     front = new Node(null, frontNodes);
+    back.prev = front;
     mods = 0;
   } // SkipList(double probability)
+
+  /**
+   * Creates an empty SkipList that holds at most capacity values.
+   * Once it is full, adding a value evicts one from the given end, or,
+   * if the new value would be the one evicted, drops it.
+   *
+   * @throws IllegalArgumentException
+   *   if capacity < 1
+   */
+  public SkipList(int capacity, Eviction eviction)
+  {
+    this(.5);
+    if (capacity < 1)
+      throw new IllegalArgumentException("Invalid capacity: " + capacity);
+    this.capacity = capacity;
+    this.eviction = eviction;
+  } // SkipList(int capacity, Eviction eviction)
   
   // +-------------------------+-----------------------------------------
   // | Internal Helper Methods |
@@ -169,6 +328,46 @@ public class SkipList<T extends Comparable<T>>
     return maxLevel;
   }// levelGenerator()
 
+  /**
+   * Append the values of sorted, which must be in non-decreasing order
+   * and no smaller than any value already in the list.  Takes linear
+   * time, since we never search: we just remember the last node at
+   * each level.
+   */
+  @SuppressWarnings({ "unchecked" })
+  void appendAll(Iterator<T> sorted)
+  {
+    // tails[level] is the last node with a link at that level
+    Node[] tails = (Node[]) new SkipList.Node[maxLevel + 1];
+    Node currentFront = front;
+    for (int level = maxLevel; level >= 0; level--)
+      {
+        while (currentFront.nodeList[level] != back)
+          {
+            currentFront = currentFront.nodeList[level];
+          }// while
+        tails[level] = currentFront;
+      }// for
+    while (sorted.hasNext())
+      {
+        int newLevel = levelGenerator();
+        Node newNode = new Node(sorted.next(),
+                                (Node[]) new SkipList.Node[newLevel + 1]);
+        newNode.prev = tails[0];
+        for (int level = 0; level <= newLevel; level++)
+          {
+            newNode.nodeList[level] = back;
+            tails[level].nodeList[level] = newNode;
+            tails[level] = newNode;
+          }// for
+        back.prev = newNode;
+        length++;
+      }// while
+    mods++;
+    if (cache != null)
+      cache.clear();
+  }// appendAll(Iterator<T>)
+
   // +-----------------------+-------------------------------------------
   // | Methods from Iterable |
   // +-----------------------+
@@ -231,7 +430,7 @@ public class SkipList<T extends Comparable<T>>
         public boolean hasNext()
         {
           failFast();
-          return this.cursor.nodeList[0].val != null;
+          return live(this.cursor.nodeList[0]) != back;
         } // hasNext()
 
         /**
@@ -245,8 +444,8 @@ public class SkipList<T extends Comparable<T>>
           failFast();
           if (!this.hasNext())
             throw new NoSuchElementException();
-          // Advance to the next node.
-          this.cursor = this.cursor.nodeList[0];
+          // Advance to the next node, skipping the dead.
+          this.cursor = live(this.cursor.nodeList[0]);
           // The next value is in the current node.
           return this.cursor.val;
         }// next()
@@ -264,41 +463,27 @@ public class SkipList<T extends Comparable<T>>
             throw new IllegalStateException("Must call next before remove");
           // We save info on the  node we want to remove
           T removeVal = cursor.val;
-          int nodeLevel = cursor.nodeList.length - 1;
-          Node currentFront = front;
-          for (int level = maxLevel; level >= 0; level--)
+          // With tombstones, we just mark the node
+          if (tombstoneRatio > 0)
             {
-              /*
-               *  While element to be removed is larger than value at where currentFront points,
-               *  we increment currentFront
-               */
-              while (currentFront.nodeList[level].val != null
-                     && currentFront.nodeList[level].val.compareTo(removeVal) < 0)
-                {
-                  currentFront = currentFront.nodeList[level];
-                }// while
-              /*
-               *  If the element we want to remove is at least on the current level, and we point
-               *  to a different node with the same value, we increment currentFront
-               */
-              while (level <= nodeLevel
-                     && currentFront.nodeList[level].val != null
-                     && currentFront.nodeList[level] != cursor
-                     && currentFront.nodeList[level].val.compareTo(removeVal) == 0)
-                {
-                  currentFront = currentFront.nodeList[level];
-                }
-              // We remove references to the node we are removing
-              if (level <= nodeLevel && currentFront.nodeList[level] == cursor)
-                {
-                  currentFront.nodeList[level] = cursor.nodeList[level];
-                }
-
-            }
+              cursor.dead = true;
+              tombstones++;
+              graves.add(cursor);
+            }// if
+          else
+            {
+              unlink(cursor);
+            }// else
           mods++;
           SkipList.this.mods++;
           length--;
           canRemove = false;
+          // Other copies of the value may remain
+          if (cache != null)
+            cache.invalidate(removeVal);
+          // Unlinking tombstones doesn't change the values, so we stay
+          // valid
+          compactSome();
         }// remove()
       };
   }// iterator()
@@ -308,14 +493,30 @@ public class SkipList<T extends Comparable<T>>
   // +------------------------+
 
   /**
-   * Add a value to the set.
+   * Add a value to the set.  If the list is bounded and full, this
+   * evicts a value (possibly val), just as offer does.
    *
-   * @post contains(val)
+   * @post contains(val), unless val was evicted
    * @post For all lav != val, if contains(lav) held before the call
-   *   to add, contains(lav) continues to hold.
+   *   to add, contains(lav) continues to hold, unless lav was evicted.
    */
-  @SuppressWarnings({ "unchecked" })
   public void add(T val)
+  {
+    if (capacity > 0 && length >= capacity)
+      {
+        offer(val);
+      }// if
+    else
+      {
+        insert(val);
+      }// else
+  }// add(T val)
+
+  /**
+   * Add a value to the list, ignoring any bound.
+   */
+  @SuppressWarnings({ "unchecked" })
+  void insert(T val)
   {
     // We get a level for the new node
     int newLevel = levelGenerator();
@@ -349,15 +550,41 @@ public class SkipList<T extends Comparable<T>>
             nodeLinks[level] = currentFront.nodeList[level];
             currentFront.nodeList[level] = newNode;
           }// if
+        if (level == 0)
+          {
+            newNode.prev = currentFront;
+            nodeLinks[0].prev = newNode;
+          }// if
       }// for
     mods++;
     length++;
-  }// add(T val)
+    if (cache != null)
+      cache.update(val, true);
+    compactSome();
+  }// insert(T val)
 
   /**
    * Determine if the set contains a particular value.
    */
   public boolean contains(T val)
+  {
+    if (cache != null)
+      {
+        Boolean known = cache.lookup(val);
+        if (known != null)
+          return known;
+        boolean result = selfAdjusting ? adjustingSearch(val) : search(val);
+        cache.put(val, result);
+        return result;
+      }// if
+    return selfAdjusting ? adjustingSearch(val) : search(val);
+  } // contains(T)
+
+  /**
+   * Determine if the set contains a particular value, without using
+   * the cache.
+   */
+  boolean search(T val)
   {
     Node currentFront = front;
     /*
@@ -378,12 +605,18 @@ public class SkipList<T extends Comparable<T>>
           }// while
       }// for
     //We return true if the first element from currentFront nodeList points to val
-    if (currentFront.nodeList[0].val == null)
+    Node next = currentFront.nodeList[0];
+    while (next.val != null && next.val.equals(val))
       {
-        return false;
-      }// if
-    return currentFront.nodeList[0].val.equals(val);
-  } // contains(T)
+        // Any live copy will do
+        if (!next.dead)
+          {
+            return true;
+          }// if
+        next = next.nodeList[0];
+      }// while
+    return false;
+  } // search(T)
 
   /**
    * Remove an element from the set.
@@ -394,6 +627,11 @@ public class SkipList<T extends Comparable<T>>
    */
   public void remove(T val)
   {
+    if (tombstoneRatio > 0)
+      {
+        bury(val);
+        return;
+      }// if
     Node currentFront = front;
     /* 
      * We loop through levels, removing all nodes with val at a given level
@@ -419,22 +657,25 @@ public class SkipList<T extends Comparable<T>>
           {
             currentFront.nodeList[level] =
                 currentFront.nodeList[level].nodeList[level];
-            /*
-             *  We increment level in case there are multiple nodes of the same level in a row which
-             *  we want to delete
-             */
-            level++;
             /*
              *  We count the number of elements we remove, because that will be the number of zero level
              *  links we remove
              */
             if (level==0)
               {
-                length++;
+                currentFront.nodeList[0].prev = currentFront;
+                length--;
               }// if
+            /*
+             *  We increment level in case there are multiple nodes of the same level in a row which
+             *  we want to delete
+             */
+            level++;
           }// if
       }// for
     mods++;
+    if (cache != null)
+      cache.update(val, false);
   }// remove(T)
 
   // +--------------------------+----------------------------------------
@@ -462,6 +703,681 @@ public class SkipList<T extends Comparable<T>>
     return length;
   } // length()
 
+  // +------------------------+------------------------------------------
+  // | Priority-Queue Methods |
+  // +------------------------+
+
+  /**
+   * Get the smallest value in the list, or null if the list is empty.
+   */
+  public T peekFirst()
+  {
+    return live(front.nodeList[0]).val;
+  } // peekFirst()
+
+  /**
+   * Remove and return the smallest value in the list (one copy, if
+   * there are several), or null if the list is empty.  Since the
+   * first node follows front at every one of its levels, this takes
+   * time proportional to the height of that node.
+   */
+  public T pollFirst()
+  {
+    // Tombstones at the front are cheap to unlink as we go
+    while (front.nodeList[0].dead)
+      {
+        front.nodeList[0].unlinked = true;
+        unlinkFirst();
+        tombstones--;
+      }// while
+    Node first = front.nodeList[0];
+    if (first == back)
+      {
+        return null;
+      }// if
+    unlinkFirst();
+    removed(first);
+    return first.val;
+  } // pollFirst()
+
+  /**
+   * Get the largest value in the list, or null if the list is empty.
+   */
+  public T peekLast()
+  {
+    Node last = back.prev;
+    while (last.dead)
+      {
+        last = last.prev;
+      }// while
+    return last.val;
+  } // peekLast()
+
+  /**
+   * Remove and return the largest value in the list (one copy, if
+   * there are several), or null if the list is empty.  We find the
+   * last node from back, and its predecessors by following the right
+   * edge of the list down, without comparing values.
+   */
+  public T pollLast()
+  {
+    while (back.prev.dead)
+      {
+        back.prev.unlinked = true;
+        unlinkLast();
+        tombstones--;
+      }// while
+    Node last = back.prev;
+    if (last == front)
+      {
+        return null;
+      }// if
+    unlinkLast();
+    removed(last);
+    return last.val;
+  } // pollLast()
+
+  /**
+   * Unlink the first node.  Since it follows front at every one of its
+   * levels, this takes time proportional to its height.
+   */
+  void unlinkFirst()
+  {
+    Node first = front.nodeList[0];
+    for (int level = 0; level < first.nodeList.length; level++)
+      {
+        front.nodeList[level] = first.nodeList[level];
+      }// for
+    first.nodeList[0].prev = front;
+  } // unlinkFirst()
+
+  /**
+   * Unlink the last node, finding its predecessors by following the
+   * right edge of the list down.
+   */
+  void unlinkLast()
+  {
+    Node last = back.prev;
+    Node currentFront = front;
+    for (int level = maxLevel; level >= 0; level--)
+      {
+        while (currentFront.nodeList[level] != back
+               && currentFront.nodeList[level] != last)
+          {
+            currentFront = currentFront.nodeList[level];
+          }// while
+        if (currentFront.nodeList[level] == last)
+          {
+            currentFront.nodeList[level] = back;
+          }// if
+      }// for
+    back.prev = last.prev;
+  } // unlinkLast()
+
+  /**
+   * Note that node has been unlinked from the list.
+   */
+  void removed(Node node)
+  {
+    length--;
+    mods++;
+    // Other copies of the value may remain
+    if (cache != null)
+      {
+        cache.invalidate(node.val);
+      }// if
+  } // removed(Node)
+
+  // +---------------+---------------------------------------------------
+  // | Bounded Lists |
+  // +---------------+
+
+  /**
+   * Get the most values the list may hold, or 0 if there is no limit.
+   */
+  public int capacity()
+  {
+    return capacity;
+  } // capacity()
+
+  /**
+   * Add a value to the list, evicting a value from the chosen end if
+   * the list is full.  A value that would be evicted at once (one no
+   * larger than the smallest, when we evict the smallest, or no
+   * smaller than the largest, when we evict the largest) is rejected
+   * after a single comparison, without touching the list.  Otherwise,
+   * the eviction takes time proportional to the height of the evicted
+   * node (at the front) or of the list (at the back), since we find
+   * it without comparisons.
+   *
+   * @return the value evicted, val itself if it was rejected, or null
+   *   if the list had room.
+   */
+  public T offer(T val)
+  {
+    if (capacity == 0 || length < capacity)
+      {
+        insert(val);
+        return null;
+      }// if
+    if (eviction == Eviction.SMALLEST)
+      {
+        if (val.compareTo(peekFirst()) <= 0)
+          {
+            return val;
+          }// if
+        T evicted = pollFirst();
+        insert(val);
+        return evicted;
+      }// if
+    if (val.compareTo(peekLast()) >= 0)
+      {
+        return val;
+      }// if
+    T evicted = pollLast();
+    insert(val);
+    return evicted;
+  } // offer(T)
+
+  // +---------------+---------------------------------------------------
+  // | Range Removal |
+  // +---------------+
+
+  /**
+   * Remove every value v with lo <= v < hi, and return the number of
+   * values removed.  We find the last node before lo and the last node
+   * before hi at every level (two descents), then link around the
+   * whole segment between them, one link per level.  The segment is
+   * dropped as a unit, so we never touch its upper levels.
+   */
+  public int removeRange(T lo, T hi)
+  {
+    if (lo.compareTo(hi) >= 0)
+      {
+        return 0;
+      }// if
+    return splice(predecessors(lo), predecessors(hi));
+  } // removeRange(T, T)
+
+  /**
+   * Remove every value smaller than hi, and return the number of values
+   * removed.
+   */
+  @SuppressWarnings({ "unchecked" })
+  public int removeHead(T hi)
+  {
+    Node[] fronts = (Node[]) new SkipList.Node[maxLevel + 1];
+    Arrays.fill(fronts, front);
+    return splice(fronts, predecessors(hi));
+  } // removeHead(T)
+
+  /**
+   * Remove every value no smaller than lo, and return the number of
+   * values removed.
+   */
+  public int removeTail(T lo)
+  {
+    return splice(predecessors(lo), predecessors(null));
+  } // removeTail(T)
+
+  /**
+   * Find the last node smaller than val at every level, or the last
+   * node at every level if val is null.
+   */
+  @SuppressWarnings({ "unchecked" })
+  Node[] predecessors(T val)
+  {
+    Node[] preds = (Node[]) new SkipList.Node[maxLevel + 1];
+    Node currentFront = front;
+    for (int level = maxLevel; level >= 0; level--)
+      {
+        while (currentFront.nodeList[level].val != null
+               && (val == null
+                   || currentFront.nodeList[level].val.compareTo(val) < 0))
+          {
+            currentFront = currentFront.nodeList[level];
+          }// while
+        preds[level] = currentFront;
+      }// for
+    return preds;
+  } // predecessors(T)
+
+  /**
+   * Unlink the nodes after before[level] up to and including
+   * last[level], at every level, and return the number of values
+   * unlinked.  At any level where the two are the same, no node of
+   * the segment reaches that level.
+   */
+  int splice(Node[] before, Node[] last)
+  {
+    if (before[0] == last[0])
+      {
+        return 0;
+      }// if
+    // Count along level 0, which is the only place we must visit every node
+    int removed = 0;
+    for (Node node = before[0].nodeList[0]; ; node = node.nodeList[0])
+      {
+        // Tombstones were counted out when they were removed
+        if (node.dead)
+          {
+            node.unlinked = true;
+            tombstones--;
+          }// if
+        else
+          {
+            removed++;
+          }// else
+        if (cache != null)
+          {
+            cache.update(node.val, false);
+          }// if
+        if (node == last[0])
+          {
+            break;
+          }// if
+      }// for
+    for (int level = 0; level <= maxLevel; level++)
+      {
+        if (before[level] != last[level])
+          {
+            before[level].nodeList[level] = last[level].nodeList[level];
+          }// if
+      }// for
+    before[0].nodeList[0].prev = before[0];
+    length -= removed;
+    mods++;
+    return removed;
+  } // splice(Node[], Node[])
+
+  // +------------+------------------------------------------------------
+  // | Tombstones |
+  // +------------+
+
+  /**
+   * Make remove lazy: rather than unlinking the nodes of a value at
+   * every level, it marks them dead (a tombstone), which costs one
+   * search and a write per copy.  Searches, iterators, and the
+   * priority-queue methods skip tombstones, and length counts only
+   * live values.  Once tombstones make up more than ratio of the
+   * nodes in the list, each add or remove unlinks up to
+   * COMPACTION_STEP of them, oldest first, at the cost of one search
+   * apiece.  Since every remove buries at most the copies of one
+   * value, that keeps the ratio in check while no call takes more than
+   * O(log n) time for compaction, rather than one call paying for a
+   * pass over the whole list.  With a ratio of 1, tombstones stay
+   * until compact is called.
+   *
+   * @throws IllegalArgumentException
+   *   if ratio <= 0 or ratio > 1
+   */
+  public void enableTombstones(double ratio)
+  {
+    if (ratio <= 0 || ratio > 1)
+      {
+        throw new IllegalArgumentException("Invalid ratio: " + ratio);
+      }// if
+    tombstoneRatio = ratio;
+  } // enableTombstones(double)
+
+  /**
+   * Make remove unlink nodes at once again, compacting away any
+   * tombstones left behind.
+   */
+  public void disableTombstones()
+  {
+    compact();
+    tombstoneRatio = 0;
+  } // disableTombstones()
+
+  /**
+   * Get the number of tombstones still linked into the list.
+   */
+  public int tombstones()
+  {
+    return tombstones;
+  } // tombstones()
+
+  /**
+   * Unlink every tombstone, and return the number unlinked.  We walk
+   * level 0 once, relinking each live node after the last live node
+   * at each of its levels, so the pass takes time linear in the size
+   * of the list.  The values in the list are unchanged, so iterators
+   * remain valid.
+   */
+  @SuppressWarnings({ "unchecked" })
+  public int compact()
+  {
+    if (tombstones == 0)
+      {
+        return 0;
+      }// if
+    // tails[level] is the last live node with a link at that level
+    Node[] tails = (Node[]) new SkipList.Node[maxLevel + 1];
+    Arrays.fill(tails, front);
+    int unlinked = 0;
+    for (Node node = front.nodeList[0]; node != back; node = node.nodeList[0])
+      {
+        if (node.dead)
+          {
+            node.unlinked = true;
+            unlinked++;
+          }// if
+        else
+          {
+            node.prev = tails[0];
+            for (int level = 0; level < node.nodeList.length; level++)
+              {
+                tails[level].nodeList[level] = node;
+                tails[level] = node;
+              }// for
+          }// else
+      }// for
+    for (int level = 0; level <= maxLevel; level++)
+      {
+        tails[level].nodeList[level] = back;
+      }// for
+    back.prev = tails[0];
+    tombstones = 0;
+    graves.clear();
+    return unlinked;
+  } // compact()
+
+  /**
+   * Mark every live copy of val dead.
+   */
+  void bury(T val)
+  {
+    Node currentFront = front;
+    for (int level = maxLevel; level >= 0; level--)
+      {
+        while (currentFront.nodeList[level].val != null
+               && currentFront.nodeList[level].val.compareTo(val) < 0)
+          {
+            currentFront = currentFront.nodeList[level];
+          }// while
+      }// for
+    // The copies all follow currentFront at level 0
+    for (Node node = currentFront.nodeList[0];
+         node.val != null && node.val.compareTo(val) == 0;
+         node = node.nodeList[0])
+      {
+        if (!node.dead)
+          {
+            node.dead = true;
+            tombstones++;
+            graves.add(node);
+            length--;
+          }// if
+      }// for
+    mods++;
+    if (cache != null)
+      cache.update(val, false);
+    compactSome();
+  } // bury(T)
+
+  /**
+   * Look at up to COMPACTION_STEP graves.  While tombstones make up
+   * more than the chosen ratio of the nodes, we unlink each one we
+   * find.  Graves that something else has already unlinked we drop,
+   * and the rest we put back, so the queue doesn't fill up with stale
+   * graves when the ratio is never reached.
+   */
+  void compactSome()
+  {
+    for (int step = 0; step < COMPACTION_STEP; step++)
+      {
+        boolean over = tombstones > tombstoneRatio * (length + tombstones);
+        // With no stale graves, there is nothing to do below the ratio
+        if (graves.isEmpty() || (!over && graves.size() == tombstones))
+          {
+            return;
+          }// if
+        Node node = graves.poll();
+        if (node.unlinked)
+          {
+            continue;
+          }// if
+        if (over)
+          {
+            unlink(node);
+            node.unlinked = true;
+            tombstones--;
+          }// if
+        else
+          {
+            graves.add(node);
+          }// else
+      }// for
+  } // compactSome()
+
+  /**
+   * Unlink node from every level it reaches.  We search for its value,
+   * stepping past other copies until we reach node itself, so this
+   * takes time proportional to log n plus the number of copies.
+   */
+  void unlink(Node node)
+  {
+    int nodeLevel = node.nodeList.length - 1;
+    Node currentFront = front;
+    for (int level = maxLevel; level >= 0; level--)
+      {
+        while (currentFront.nodeList[level].val != null
+               && currentFront.nodeList[level].val.compareTo(node.val) < 0)
+          {
+            currentFront = currentFront.nodeList[level];
+          }// while
+        // Step past other copies of the value at the levels node reaches
+        while (level <= nodeLevel
+               && currentFront.nodeList[level].val != null
+               && currentFront.nodeList[level] != node
+               && currentFront.nodeList[level].val.compareTo(node.val) == 0)
+          {
+            currentFront = currentFront.nodeList[level];
+          }// while
+        if (level <= nodeLevel && currentFront.nodeList[level] == node)
+          {
+            currentFront.nodeList[level] = node.nodeList[level];
+          }// if
+      }// for
+    node.nodeList[0].prev = node.prev;
+  } // unlink(Node)
+
+  /**
+   * Get the first live node at or after node (which may be back).
+   */
+  Node live(Node node)
+  {
+    while (node.dead)
+      {
+        node = node.nodeList[0];
+      }// while
+    return node;
+  } // live(Node)
+
+  // +----------------+--------------------------------------------------
+  // | Self-Adjusting |
+  // +----------------+
+
+  /**
+   * Turn self-adjustment on or off.  While it is on, each node that
+   * contains finds is promoted one level each time its recent hits
+   * double, so popular values end up near the top of the list and are
+   * found in a few steps.  Hits halve every epoch (a number of calls
+   * to contains equal to the length of the list, but at least 1024),
+   * and searches demote the cold nodes they pass over, one level at a
+   * time, back towards the levels they were created with.
+   */
+  public void setSelfAdjusting(boolean selfAdjusting)
+  {
+    this.selfAdjusting = selfAdjusting;
+  } // setSelfAdjusting(boolean)
+
+  /**
+   * Search for val, as contains does, but promote the node we find
+   * and demote cold nodes we pass.
+   */
+  @SuppressWarnings({ "unchecked" })
+  boolean adjustingSearch(T val)
+  {
+    if (++epochCalls >= Math.max(1024, length))
+      {
+        epoch++;
+        epochCalls = 0;
+      }// if
+    Node[] update = (Node[]) new SkipList.Node[maxLevel + 1];
+    Node currentFront = front;
+    Node found = null;
+    /*
+     *  Unlike search, we stop as soon as we meet val, since that is
+     *  the point of promoting it
+     */
+    for (int level = maxLevel; level >= 0 && found == null; level--)
+      {
+        Node next = currentFront.nodeList[level];
+        while (next.val != null && found == null)
+          {
+            int order = next.val.compareTo(val);
+            if (order > 0)
+              {
+                break;
+              }// if
+            next.decay();
+            if (order == 0)
+              {
+                found = next;
+              }// if
+            /*
+             *  If this is the top of a tower the node no longer earns,
+             *  we cut it down by a level and look again
+             */
+            else if (level == next.nodeList.length - 1
+                     && level > next.earnedLevel())
+              {
+                currentFront.nodeList[level] = next.nodeList[level];
+                next.nodeList = Arrays.copyOf(next.nodeList, level);
+              }// else if
+            else
+              {
+                currentFront = next;
+              }// else
+            next = currentFront.nodeList[level];
+          }// while
+        update[level] = currentFront;
+      }// for
+    if (found == null)
+      {
+        return false;
+      }// if
+    // A tombstone earns nothing, though a later copy may be live
+    if (found.dead)
+      {
+        return search(val);
+      }// if
+    found.hits++;
+    int height = found.nodeList.length - 1;
+    int earned = found.earnedLevel();
+    if (earned > height)
+      {
+        // Raise the tower, linking it in after the nodes we passed
+        found.nodeList = Arrays.copyOf(found.nodeList, earned + 1);
+        for (int level = height + 1; level <= earned; level++)
+          {
+            found.nodeList[level] = update[level].nodeList[level];
+            update[level].nodeList[level] = found;
+          }// for
+      }// if
+    return true;
+  } // adjustingSearch(T)
+
+  // +--------------+----------------------------------------------------
+  // | Lookup Cache |
+  // +--------------+
+
+  /**
+   * Remember the answers to the most recent calls to contains, for up
+   * to capacity distinct values, so that repeated lookups of popular
+   * values take constant time.  The values must have hashCode and
+   * equals methods that agree with compareTo.
+   */
+  public void enableLookupCache(int capacity)
+  {
+    cache = new ClockCache<T>(capacity);
+  } // enableLookupCache(int)
+
+  /**
+   * Stop caching the answers to contains.
+   */
+  public void disableLookupCache()
+  {
+    cache = null;
+  } // disableLookupCache()
+
+  /**
+   * Get the number of calls to contains answered from the cache.
+   */
+  public long cacheHits()
+  {
+    return (cache == null) ? 0 : cache.hits;
+  } // cacheHits()
+
+  /**
+   * Get the number of calls to contains that missed the cache.
+   */
+  public long cacheMisses()
+  {
+    return (cache == null) ? 0 : cache.misses;
+  } // cacheMisses()
+
+  // +-----------------+-------------------------------------------------
+  // | Instrumentation |
+  // +-----------------+
+
+  /**
+   * Trace the path that contains(val) follows through the list.
+   *
+   * @return path
+   *   path[0] is the number of nodes visited, counting each node we
+   *   step to and the node at which the search ends; path[1] is the
+   *   number of levels descended, counting from the highest non-empty
+   *   level of the list.
+   */
+  public int[] searchPath(T val)
+  {
+    int[] path = new int[2];
+    Node currentFront = front;
+    for (int level = maxLevel; level >= 0; level--)
+      {
+        if (currentFront.nodeList[level] != back || path[1] > 0)
+          path[1]++;
+        while (currentFront.nodeList[level].val != null
+               && currentFront.nodeList[level].val.compareTo(val) < 0)
+          {
+            currentFront = currentFront.nodeList[level];
+            path[0]++;
+          }// while
+      }// for
+    // The search ends by looking at the next node on level 0
+    if (currentFront.nodeList[0] != back)
+      path[0]++;
+    return path;
+  } // searchPath(T)
+
+  /**
+   * Count the towers of each height.
+   *
+   * @return heights
+   *   heights[level] is the number of nodes whose highest level is
+   *   level.
+   */
+  public int[] towerHeights()
+  {
+    int[] heights = new int[maxLevel + 1];
+    for (Node node = front.nodeList[0]; node != back; node = node.nodeList[0])
+      heights[node.nodeList.length - 1]++;
+    return heights;
+  } // towerHeights()
+
   //Delete Me, prints every node except for last
   public void print()
   {
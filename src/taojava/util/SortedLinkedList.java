@@ -23,6 +23,15 @@ public class SortedLinkedList<T extends Comparable<T>>
    */
   LinkedList<T> core;
 
+  /**
+   * A cached cursor into core, or null if we have none.  All of our
+   * own modifications go through the finger, which keeps it valid; if
+   * the list is modified some other way (e.g., through one of our
+   * iterators), we drop it.  Searches and index operations start from
+   * the finger, so operations near the last one touched are cheap.
+   */
+  ListIterator<T> finger;
+
   // +--------------+----------------------------------------------------
   // | Constructors |
   // +--------------+
@@ -40,12 +49,25 @@ public class SortedLinkedList<T extends Comparable<T>>
   // +-------------------------+
 
   /**
-   * Create a new iterator and advance that iterator to the first value 
-   * greater than or equal to val, or to the end of the list.
+   * Move the finger to the first value greater than or equal to val,
+   * or to the end of the list, and return it.  We start from wherever
+   * the finger is, so the cost is proportional to the distance moved.
    */
   ListIterator<T> advanceTo(T val)
   {
-    ListIterator<T> it = this.core.listIterator();
+    if (this.finger == null)
+      this.finger = this.core.listIterator();
+    ListIterator<T> it = this.finger;
+    // Back up over any values that are greater than or equal to val
+    while (it.hasPrevious())
+      {
+        if (val.compareTo(it.previous()) > 0)
+          {
+            it.next();
+            break;
+          } // if the previous value is smaller than val
+      } // while (it.hasPrevious())
+    // And move forward over any values that are smaller than val
     while (it.hasNext())
       {
         // If we pass over a larger/equal value
@@ -93,6 +115,8 @@ public class SortedLinkedList<T extends Comparable<T>>
         public void remove()
         {
           core.remove();
+          // The finger no longer knows where it is
+          SortedLinkedList.this.finger = null;
         } // remove()
       }; // new Iterator<T>
   } // iterator()
@@ -160,7 +184,23 @@ public class SortedLinkedList<T extends Comparable<T>>
    */
   public T get(int i)
   {
-    return this.core.get(i);
+    int length = this.core.size();
+    if ((i < 0) || (i >= length))
+      throw new IndexOutOfBoundsException("Index: " + i + ", Length: "
+                                          + length);
+    ListIterator<T> it = this.finger;
+    // Start from the finger, unless one of the ends is closer
+    if ((it == null)
+        || (Math.abs(i - it.nextIndex()) > Math.min(i, length - i)))
+      {
+        it = this.core.listIterator(i);
+        this.finger = it;
+      } // if we should start from an end
+    while (it.nextIndex() < i)
+      it.next();
+    while (it.nextIndex() > i)
+      it.previous();
+    return it.next();
   } // get(int)
 
   /**
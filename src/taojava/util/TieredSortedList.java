@@ -0,0 +1,385 @@
+package taojava.util;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Sorted lists implemented with tiered vectors.  The elements are
+ * stored in blocks of size b (about the square root of the length),
+ * each of which is a circular buffer.  Every block but the last is
+ * full, so we can find the ith element in constant time, and we can
+ * still use binary search.  To insert (or remove) an element, we
+ * shift the elements within one block and then move one element
+ * between each pair of following blocks, which costs O(b + n/b),
+ * rather than the O(n) of SortedArrayList.
+ */
+public class TieredSortedList<T extends Comparable<T>>
+    implements SortedList<T>
+{
+  // +-----------+-------------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The log (base 2) of the smallest block size we use.
+   */
+  static final int MIN_SHIFT = 4;
+
+  // +--------+----------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The blocks.  Only the first ceil(length/b) are in use.
+   */
+  Object[][] blocks;
+
+  /**
+   * The position within each block of its first element.
+   */
+  int[] offsets;
+
+  /**
+   * The log (base 2) of the block size.
+   */
+  int shift;
+
+  /**
+   * The block size minus one, used to wrap positions within a block.
+   */
+  int mask;
+
+  /**
+   * The number of elements in the list.
+   */
+  int length;
+
+  /**
+   * The number of modifications to the list.  Used to determine
+   * whether an iterator is valid.
+   */
+  long mods;
+
+  // +--------------+----------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new sorted list.
+   */
+  public TieredSortedList()
+  {
+    this.length = 0;
+    this.mods = 0;
+    this.reshape(MIN_SHIFT);
+  } // TieredSortedList()
+
+  // +-------------------------+-----------------------------------------
+  // | Internal Helper Methods |
+  // +-------------------------+
+
+  /**
+   * Get the element at index i, without checking bounds.
+   */
+  @SuppressWarnings("unchecked")
+  T element(int i)
+  {
+    int blk = i >> this.shift;
+    return (T) this.blocks[blk][(this.offsets[blk] + i) & this.mask];
+  } // element(int)
+
+  /**
+   * Rebuild the list with blocks of size 2^newShift.
+   */
+  void reshape(int newShift)
+  {
+    Object[] vals = new Object[this.length];
+    for (int i = 0; i < this.length; i++)
+      vals[i] = this.element(i);
+    this.shift = newShift;
+    this.mask = (1 << newShift) - 1;
+    int count = Math.max(4, 2 * ((this.length >> newShift) + 1));
+    this.blocks = new Object[count][];
+    this.offsets = new int[count];
+    for (int i = 0; i < this.length; i++)
+      {
+        int blk = i >> newShift;
+        if (this.blocks[blk] == null)
+          this.blocks[blk] = new Object[1 << newShift];
+        this.blocks[blk][i & this.mask] = vals[i];
+      } // for (i)
+  } // reshape(int)
+
+  /**
+   * Make sure that block blk exists.
+   */
+  void ensureBlock(int blk)
+  {
+    if (blk >= this.blocks.length)
+      {
+        Object[][] newBlocks = new Object[2 * this.blocks.length][];
+        int[] newOffsets = new int[newBlocks.length];
+        System.arraycopy(this.blocks, 0, newBlocks, 0, this.blocks.length);
+        System.arraycopy(this.offsets, 0, newOffsets, 0, this.offsets.length);
+        this.blocks = newBlocks;
+        this.offsets = newOffsets;
+      } // if we need more blocks
+    if (this.blocks[blk] == null)
+      this.blocks[blk] = new Object[this.mask + 1];
+  } // ensureBlock(int)
+
+  /**
+   * Insert val at index i, shifting later elements.
+   */
+  void insertAt(int i, T val)
+  {
+    // Keep the block size near the square root of the length
+    if (this.length >= 2 << (2 * this.shift))
+      this.reshape(this.shift + 1);
+    int size = this.mask + 1;
+    int last = this.length >> this.shift;
+    int blk = i >> this.shift;
+    this.ensureBlock(last);
+
+    // Move the last element of each full block to the front of the
+    // following block, working backwards from the last block.
+    for (int k = last; k > blk; k--)
+      {
+        int from = (this.offsets[k - 1] + size - 1) & this.mask;
+        this.offsets[k] = (this.offsets[k] - 1) & this.mask;
+        this.blocks[k][this.offsets[k]] = this.blocks[k - 1][from];
+        this.blocks[k - 1][from] = null;
+      } // for (k)
+
+    // Shift within block blk, moving whichever side is smaller.
+    Object[] block = this.blocks[blk];
+    int off = this.offsets[blk];
+    int count = (blk == last) ? this.length - (blk << this.shift) : size - 1;
+    int j = i & this.mask;
+    if (j < count / 2)
+      {
+        off = (off - 1) & this.mask;
+        for (int p = 0; p < j; p++)
+          block[(off + p) & this.mask] = block[(off + p + 1) & this.mask];
+        this.offsets[blk] = off;
+      } // if the front part is smaller
+    else
+      {
+        for (int p = count; p > j; p--)
+          block[(off + p) & this.mask] = block[(off + p - 1) & this.mask];
+      } // otherwise
+    block[(off + j) & this.mask] = val;
+    this.length++;
+    this.mods++;
+  } // insertAt(int, T)
+
+  /**
+   * Remove the element at index i, shifting later elements.
+   */
+  void removeAt(int i)
+  {
+    int size = this.mask + 1;
+    int last = (this.length - 1) >> this.shift;
+    int blk = i >> this.shift;
+
+    // Close the gap within block blk, moving whichever side is smaller.
+    Object[] block = this.blocks[blk];
+    int off = this.offsets[blk];
+    int count = (blk == last) ? this.length - (blk << this.shift) : size;
+    int j = i & this.mask;
+    if (j < count / 2)
+      {
+        for (int p = j; p > 0; p--)
+          block[(off + p) & this.mask] = block[(off + p - 1) & this.mask];
+        block[off] = null;
+        this.offsets[blk] = (off + 1) & this.mask;
+      } // if the front part is smaller
+    else
+      {
+        for (int p = j; p < count - 1; p++)
+          block[(off + p) & this.mask] = block[(off + p + 1) & this.mask];
+        block[(off + count - 1) & this.mask] = null;
+      } // otherwise
+
+    // Move the first element of each following block to the end of
+    // the preceding block.
+    for (int k = blk + 1; k <= last; k++)
+      {
+        int to = (this.offsets[k - 1] + size - 1) & this.mask;
+        this.blocks[k - 1][to] = this.blocks[k][this.offsets[k]];
+        this.blocks[k][this.offsets[k]] = null;
+        this.offsets[k] = (this.offsets[k] + 1) & this.mask;
+      } // for (k)
+    this.length--;
+    this.mods++;
+
+    // Shrink the blocks if the list has become much smaller
+    if ((this.shift > MIN_SHIFT) && (this.length < 1 << (2 * this.shift - 3)))
+      this.reshape(this.shift - 1);
+  } // removeAt(int)
+
+  /**
+   * Find the index of val.  If val is not in the list, returns the
+   * index of where val should go (either the index of the first value
+   * greater than val, if there is such an index, or length, if there
+   * is no such index).
+   */
+  int findIndex(T val)
+  {
+    int lb = 0;
+    int ub = this.length;
+
+    // Invariant:
+    //   +-------+------+-------+
+    //   | < val |  ?   | > val |
+    //   +-------+------+-------+
+    //   0       lb     ub      length
+    while (lb < ub)
+      {
+        int mid = lb + (ub - lb) / 2;
+        int order = val.compareTo(this.element(mid));
+        if (order == 0)
+          return mid;
+        else if (order > 0)
+          lb = mid + 1;
+        else
+          ub = mid;
+      } // while
+    return lb;
+  } // findIndex(T)
+
+  /**
+   * Determine if val appears at the given index.
+   */
+  boolean valAppearsAt(T val, int index)
+  {
+    return (index < this.length) && (val.compareTo(this.element(index)) == 0);
+  } // valAppearsAt(T, int)
+
+  // +-----------------------+-------------------------------------------
+  // | Methods from Iterable |
+  // +-----------------------+
+
+  /**
+   * Return an iterator that steps through the values of the list from
+   * smallest to largest.
+   */
+  public Iterator<T> iterator()
+  {
+    return new Iterator<T>()
+      {
+        /**
+         * The index of the value to be returned by next.
+         */
+        int pos = 0;
+
+        /**
+         * The number of modifications at the time this iterator was
+         * created or last updated.
+         */
+        long mods = TieredSortedList.this.mods;
+
+        /**
+         * Whether we can remove the value most recently returned.
+         */
+        boolean canRemove = false;
+
+        void failFast()
+        {
+          if (this.mods != TieredSortedList.this.mods)
+            throw new ConcurrentModificationException();
+        } // failFast()
+
+        public boolean hasNext()
+        {
+          failFast();
+          return this.pos < TieredSortedList.this.length;
+        } // hasNext()
+
+        public T next()
+        {
+          if (!this.hasNext())
+            throw new NoSuchElementException();
+          this.canRemove = true;
+          return TieredSortedList.this.element(this.pos++);
+        } // next()
+
+        public void remove()
+        {
+          failFast();
+          if (!this.canRemove)
+            throw new IllegalStateException("Must call next before remove");
+          TieredSortedList.this.removeAt(--this.pos);
+          this.mods = TieredSortedList.this.mods;
+          this.canRemove = false;
+        } // remove()
+      }; // new Iterator<T>
+  } // iterator()
+
+  // +------------------------+------------------------------------------
+  // | Methods from SimpleSet |
+  // +------------------------+
+
+  /**
+   * Add a value to the set.
+   *
+   * @post contains(val)
+   * @post For all lav != val, if contains(lav) held before the call
+   *   to add, contains(lav) continues to hold.
+   */
+  public void add(T val)
+  {
+    int index = this.findIndex(val);
+    if (!this.valAppearsAt(val, index))
+      this.insertAt(index, val);
+  } // add(T val)
+
+  /**
+   * Determine if the set contains a particular value.
+   */
+  public boolean contains(T val)
+  {
+    return this.valAppearsAt(val, this.findIndex(val));
+  } // contains(T)
+
+  /**
+   * Remove an element from the set.
+   *
+   * @post !contains(val)
+   * @post For all lav != val, if contains(lav) held before the call
+   *   to remove, contains(lav) continues to hold.
+   */
+  public void remove(T val)
+  {
+    int index = this.findIndex(val);
+    if (this.valAppearsAt(val, index))
+      this.removeAt(index);
+  } // remove(T)
+
+  // +--------------------------+----------------------------------------
+  // | Methods from SemiIndexed |
+  // +--------------------------+
+
+  /**
+   * Get the element at index i.
+   *
+   * @throws IndexOutOfBoundsException
+   *   if the index is out of range (index < 0 || index >= length)
+   */
+  public T get(int i)
+  {
+    if ((i < 0) || (i >= this.length))
+      throw new IndexOutOfBoundsException("Index: " + i + ", Length: "
+                                          + this.length);
+    return this.element(i);
+  } // get(int)
+
+  /**
+   * Determine the number of elements in the collection.
+   */
+  public int length()
+  {
+    return this.length;
+  } // length()
+} // class TieredSortedList<T>
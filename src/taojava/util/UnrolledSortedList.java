@@ -0,0 +1,424 @@
+package taojava.util;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Sorted lists implemented with unrolled linked lists.  Each node
+ * holds a small sorted array of values, so we pay for one node (and
+ * one cache miss) per CAPACITY/2 or so values, rather than per value.
+ * Full nodes split in two; nodes that fall below a quarter full
+ * borrow from or merge with a neighbor.
+ */
+public class UnrolledSortedList<T extends Comparable<T>>
+    implements SortedList<T>
+{
+  // +-----------+-------------------------------------------------------
+  // | Constants |
+  // +-----------+
+
+  /**
+   * The number of values a node can hold.
+   */
+  static final int CAPACITY = 64;
+
+  // +--------+----------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The first node.  There is always at least one node, although it
+   * may be empty.
+   */
+  Node head;
+
+  /**
+   * The number of values in the list.
+   */
+  int length;
+
+  /**
+   * The number of modifications to the list.  Used to determine
+   * whether an iterator is valid.
+   */
+  long mods;
+
+  // +------------------+------------------------------------------------
+  // | Internal Classes |
+  // +------------------+
+
+  /**
+   * Nodes in the list.
+   */
+  class Node
+  {
+    /**
+     * The values in the node, in order.  Only the first count are used.
+     */
+    Object[] vals = new Object[CAPACITY];
+
+    /**
+     * The number of values in the node.
+     */
+    int count;
+
+    /**
+     * The neighboring nodes.
+     */
+    Node prev;
+    Node next;
+
+    /**
+     * Get the ith value in this node.
+     */
+    @SuppressWarnings("unchecked")
+    T get(int i)
+    {
+      return (T) this.vals[i];
+    } // get(int)
+
+    /**
+     * Find the index of val in this node, or where it should go.
+     */
+    int findIndex(T val)
+    {
+      int lb = 0;
+      int ub = this.count;
+      while (lb < ub)
+        {
+          int mid = (lb + ub) >>> 1;
+          int order = val.compareTo(this.get(mid));
+          if (order == 0)
+            return mid;
+          else if (order > 0)
+            lb = mid + 1;
+          else
+            ub = mid;
+        } // while
+      return lb;
+    } // findIndex(T)
+
+    /**
+     * Move the last n values of this node to the front of other.
+     */
+    void moveLastTo(Node other, int n)
+    {
+      System.arraycopy(other.vals, 0, other.vals, n, other.count);
+      System.arraycopy(this.vals, this.count - n, other.vals, 0, n);
+      for (int i = this.count - n; i < this.count; i++)
+        this.vals[i] = null;
+      this.count -= n;
+      other.count += n;
+    } // moveLastTo(Node, int)
+
+    /**
+     * Move the first n values of other to the end of this node.
+     */
+    void moveFirstFrom(Node other, int n)
+    {
+      System.arraycopy(other.vals, 0, this.vals, this.count, n);
+      System.arraycopy(other.vals, n, other.vals, 0, other.count - n);
+      for (int i = other.count - n; i < other.count; i++)
+        other.vals[i] = null;
+      other.count -= n;
+      this.count += n;
+    } // moveFirstFrom(Node, int)
+  } // class Node
+
+  /**
+   * A position in the list.
+   */
+  class Cursor
+  {
+    Node node;
+    int index;
+
+    Cursor(Node node, int index)
+    {
+      this.node = node;
+      this.index = index;
+    } // Cursor(Node, int)
+
+    /**
+     * Move past the end of a node to the start of the next one.
+     */
+    void normalize()
+    {
+      while ((this.index >= this.node.count) && (this.node.next != null))
+        {
+          this.index -= this.node.count;
+          this.node = this.node.next;
+        } // while
+    } // normalize()
+  } // class Cursor
+
+  // +--------------+----------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create a new sorted list.
+   */
+  public UnrolledSortedList()
+  {
+    this.head = new Node();
+    this.length = 0;
+    this.mods = 0;
+  } // UnrolledSortedList()
+
+  // +-------------------------+-----------------------------------------
+  // | Internal Helper Methods |
+  // +-------------------------+
+
+  /**
+   * Find the node that holds val, or that val belongs in: the last
+   * node whose first value is no larger than val (or the first node).
+   */
+  Node findNode(T val)
+  {
+    Node node = this.head;
+    while ((node.next != null) && (val.compareTo(node.next.get(0)) >= 0))
+      node = node.next;
+    return node;
+  } // findNode(T)
+
+  /**
+   * Find the position of val, or where it should go.
+   */
+  Cursor find(T val)
+  {
+    Node node = this.findNode(val);
+    return new Cursor(node, node.findIndex(val));
+  } // find(T)
+
+  /**
+   * Determine if val appears at the cursor.
+   */
+  boolean valAppearsAt(T val, Cursor c)
+  {
+    return (c.index < c.node.count)
+           && (val.compareTo(c.node.get(c.index)) == 0);
+  } // valAppearsAt(T, Cursor)
+
+  /**
+   * Insert val at the cursor, splitting the node if it is full.
+   */
+  void insertAt(Cursor c, T val)
+  {
+    Node node = c.node;
+    int index = c.index;
+    if (node.count == CAPACITY)
+      {
+        Node half = new Node();
+        half.prev = node;
+        half.next = node.next;
+        if (node.next != null)
+          node.next.prev = half;
+        node.next = half;
+        node.moveLastTo(half, CAPACITY / 2);
+        if (index > node.count)
+          {
+            index -= node.count;
+            node = half;
+          } // if val belongs in the new node
+      } // if the node is full
+    System.arraycopy(node.vals, index, node.vals, index + 1,
+                     node.count - index);
+    node.vals[index] = val;
+    node.count++;
+    this.length++;
+    this.mods++;
+  } // insertAt(Cursor, T)
+
+  /**
+   * Remove the value at the cursor, and leave the cursor at the value
+   * that followed it.
+   */
+  void removeAt(Cursor c)
+  {
+    Node node = c.node;
+    System.arraycopy(node.vals, c.index + 1, node.vals, c.index,
+                     node.count - c.index - 1);
+    node.vals[--node.count] = null;
+    this.length--;
+    this.mods++;
+
+    if (node.count < CAPACITY / 4)
+      {
+        if (node.next != null)
+          {
+            Node next = node.next;
+            if (node.count + next.count <= 3 * CAPACITY / 4)
+              {
+                // Absorb the next node
+                node.moveFirstFrom(next, next.count);
+                node.next = next.next;
+                if (next.next != null)
+                  next.next.prev = node;
+              } // if we can merge
+            else
+              node.moveFirstFrom(next, (next.count - node.count) / 2);
+          } // if there is a next node
+        else if (node.prev != null)
+          {
+            Node prev = node.prev;
+            if (node.count + prev.count <= 3 * CAPACITY / 4)
+              {
+                // Join the previous node
+                c.index += prev.count;
+                c.node = prev;
+                prev.moveFirstFrom(node, node.count);
+                prev.next = null;
+              } // if we can merge
+            else
+              {
+                int n = (prev.count - node.count) / 2;
+                prev.moveLastTo(node, n);
+                c.index += n;
+              } // otherwise
+          } // if there is a previous node
+      } // if the node is too empty
+    c.normalize();
+  } // removeAt(Cursor)
+
+  // +-----------------------+-------------------------------------------
+  // | Methods from Iterable |
+  // +-----------------------+
+
+  /**
+   * Return an iterator that steps through the values of the list from
+   * smallest to largest.
+   */
+  public Iterator<T> iterator()
+  {
+    return new Iterator<T>()
+      {
+        /**
+         * The position of the value to be returned by next.
+         */
+        Cursor cursor = new Cursor(head, 0);
+
+        /**
+         * The number of modifications at the time this iterator was
+         * created or last updated.
+         */
+        long mods = UnrolledSortedList.this.mods;
+
+        /**
+         * Whether we can remove the value most recently returned.
+         */
+        boolean canRemove = false;
+
+        void failFast()
+        {
+          if (this.mods != UnrolledSortedList.this.mods)
+            throw new ConcurrentModificationException();
+        } // failFast()
+
+        public boolean hasNext()
+        {
+          failFast();
+          // Look ahead without moving the cursor, which must stay just
+          // after the value next returned, for remove
+          Node node = this.cursor.node;
+          int index = this.cursor.index;
+          while ((index >= node.count) && (node.next != null))
+            {
+              index -= node.count;
+              node = node.next;
+            } // while
+          return index < node.count;
+        } // hasNext()
+
+        public T next()
+        {
+          if (!this.hasNext())
+            throw new NoSuchElementException();
+          this.cursor.normalize();
+          this.canRemove = true;
+          return this.cursor.node.get(this.cursor.index++);
+        } // next()
+
+        public void remove()
+        {
+          failFast();
+          if (!this.canRemove)
+            throw new IllegalStateException("Must call next before remove");
+          // Step back to the value we just returned
+          this.cursor.index--;
+          removeAt(this.cursor);
+          this.mods = UnrolledSortedList.this.mods;
+          this.canRemove = false;
+        } // remove()
+      }; // new Iterator<T>
+  } // iterator()
+
+  // +------------------------+------------------------------------------
+  // | Methods from SimpleSet |
+  // +------------------------+
+
+  /**
+   * Add a value to the set.
+   *
+   * @post contains(val)
+   * @post For all lav != val, if contains(lav) held before the call
+   *   to add, contains(lav) continues to hold.
+   */
+  public void add(T val)
+  {
+    Cursor c = this.find(val);
+    if (!this.valAppearsAt(val, c))
+      this.insertAt(c, val);
+  } // add(T val)
+
+  /**
+   * Determine if the set contains a particular value.
+   */
+  public boolean contains(T val)
+  {
+    return this.valAppearsAt(val, this.find(val));
+  } // contains(T)
+
+  /**
+   * Remove an element from the set.
+   *
+   * @post !contains(val)
+   * @post For all lav != val, if contains(lav) held before the call
+   *   to remove, contains(lav) continues to hold.
+   */
+  public void remove(T val)
+  {
+    Cursor c = this.find(val);
+    if (this.valAppearsAt(val, c))
+      this.removeAt(c);
+  } // remove(T)
+
+  // +--------------------------+----------------------------------------
+  // | Methods from SemiIndexed |
+  // +--------------------------+
+
+  /**
+   * Get the element at index i.
+   *
+   * @throws IndexOutOfBoundsException
+   *   if the index is out of range (index < 0 || index >= length)
+   */
+  public T get(int i)
+  {
+    if ((i < 0) || (i >= this.length))
+      throw new IndexOutOfBoundsException("Index: " + i + ", Length: "
+                                          + this.length);
+    Cursor c = new Cursor(this.head, i);
+    c.normalize();
+    return c.node.get(c.index);
+  } // get(int)
+
+  /**
+   * Determine the number of elements in the collection.
+   */
+  public int length()
+  {
+    return this.length;
+  } // length()
+} // class UnrolledSortedList<T>
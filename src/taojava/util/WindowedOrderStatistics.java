@@ -0,0 +1,176 @@
+package taojava.util;
+
+import java.util.ArrayDeque;
+
+/**
+ * Order statistics (medians, percentiles, ranks) over a sliding window
+ * of a stream of values.  The window holds the most recent values,
+ * either a fixed number of them or those stamped within a span of
+ * time.  We keep the window in arrival order, to know what to evict,
+ * and in an AugmentedSkipList, whose link widths find the value of
+ * any rank, and the rank of any value, in O(log n) expected time.
+ *
+ * Each of those steps follows a few references per level, so once the
+ * window outgrows the cache it costs a miss apiece.  For ints,
+ * IntWindowedOrderStatistics does the same work on packed arrays and
+ * is several times faster.
+ */
+public class WindowedOrderStatistics<T extends Comparable<T>>
+{
+  // +------------------+------------------------------------------------
+  // | Internal Classes |
+  // +------------------+
+
+  /**
+   * Values in the window, with the times they arrived.
+   */
+  static class Entry<T>
+  {
+    T val;
+
+    long time;
+
+    Entry(T val, long time)
+    {
+      this.val = val;
+      this.time = time;
+    } // Entry(T, long)
+  } // class Entry<T>
+
+  // +--------+----------------------------------------------------------
+  // | Fields |
+  // +--------+
+
+  /**
+   * The values in the window, in order.
+   */
+  AugmentedSkipList<T, Void> sorted;
+
+  /**
+   * The values in the window, oldest first.
+   */
+  ArrayDeque<Entry<T>> arrivals;
+
+  /**
+   * The most values the window may hold, or 0 if there is no limit.
+   */
+  int capacity;
+
+  // +--------------+----------------------------------------------------
+  // | Constructors |
+  // +--------------+
+
+  /**
+   * Create an empty window that holds the most recent capacity values.
+   * With a capacity of 0, the window holds values until they are
+   * evicted with evictBefore.
+   *
+   * @throws IllegalArgumentException
+   *   if capacity < 0
+   */
+  public WindowedOrderStatistics(int capacity)
+  {
+    if (capacity < 0)
+      throw new IllegalArgumentException("Invalid capacity: " + capacity);
+    // Ranks need only the widths, so we keep no summary
+    this.sorted = new AugmentedSkipList<T, Void>();
+    this.arrivals = new ArrayDeque<Entry<T>>();
+    this.capacity = capacity;
+  } // WindowedOrderStatistics(int)
+
+  // +-------------------------+-----------------------------------------
+  // | Internal Helper Methods |
+  // +-------------------------+
+
+  /**
+   * Evict the oldest value.
+   */
+  void evictOldest()
+  {
+    // Copies of a value are interchangeable, so any one will do
+    this.sorted.removeOne(this.arrivals.removeFirst().val);
+  } // evictOldest()
+
+  // +---------+---------------------------------------------------------
+  // | Methods |
+  // +---------+
+
+  /**
+   * Add a value to the window, evicting the oldest if the window is
+   * full.
+   */
+  public void add(T val)
+  {
+    this.add(0, val);
+  } // add(T)
+
+  /**
+   * Add a value that arrived at time, which should be no earlier than
+   * the time of any value already in the window, evicting the oldest
+   * if the window is full.
+   */
+  public void add(long time, T val)
+  {
+    if ((this.capacity > 0) && (this.arrivals.size() >= this.capacity))
+      this.evictOldest();
+    this.arrivals.addLast(new Entry<T>(val, time));
+    this.sorted.add(val);
+  } // add(long, T)
+
+  /**
+   * Evict every value that arrived before time.
+   *
+   * @return the number of values evicted.
+   */
+  public int evictBefore(long time)
+  {
+    int evicted = 0;
+    while (!this.arrivals.isEmpty()
+           && (this.arrivals.peekFirst().time < time))
+      {
+        this.evictOldest();
+        evicted++;
+      } // while
+    return evicted;
+  } // evictBefore(long)
+
+  /**
+   * Get the number of values in the window.
+   */
+  public int size()
+  {
+    return this.arrivals.size();
+  } // size()
+
+  /**
+   * Get the value of quantile q (between 0 and 1) of the window: the
+   * smallest value at least a fraction q of the window is no larger
+   * than (the nearest-rank definition), or null if the window is
+   * empty.
+   */
+  public T quantile(double q)
+  {
+    int n = this.sorted.length();
+    if (n == 0)
+      return null;
+    int i = (int) Math.ceil(q * n) - 1;
+    return this.sorted.get(Math.max(0, Math.min(n - 1, i)));
+  } // quantile(double)
+
+  /**
+   * Get the median of the window (the lower median, for an even
+   * number of values), or null if the window is empty.
+   */
+  public T median()
+  {
+    return this.quantile(0.5);
+  } // median()
+
+  /**
+   * Determine the number of values in the window smaller than val.
+   */
+  public int rank(T val)
+  {
+    return this.sorted.rank(val);
+  } // rank(T)
+} // class WindowedOrderStatistics<T>